@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexScenarioExecutor} runs the scenario writes of the Yandex cloud concurrently, but not more than
+ * the configured count at a time and not faster than the configured rate. The rate is limited by a token bucket,
+ * a burst is not larger than the parallelism.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexScenarioExecutor {
+    private final ScheduledExecutorService scheduler;
+    private final int parallelism;
+    /**
+     * The tokens per ns.
+     */
+    private final double rate;
+    private final double capacity;
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+    private double tokens;
+    private long refilled = System.nanoTime();
+    private boolean dispatchScheduled;
+
+    /**
+     * Instantiates a new scenario executor.
+     *
+     * @param scheduler the scheduler
+     * @param parallelism the max count of writes running at a time
+     * @param rate the max count of writes started per sec
+     */
+    public YandexScenarioExecutor(ScheduledExecutorService scheduler, int parallelism, int rate) {
+        this.scheduler = scheduler;
+        this.parallelism = Math.max(1, parallelism);
+        this.rate = Math.max(1, rate) / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacity = this.parallelism;
+        this.tokens = 1;
+    }
+
+    /**
+     * Submit async write, its slot is held until the returned future is completed.
+     *
+     * @param <T> the result type
+     * @param write the write
+     * @return the future write result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> write) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            CompletableFuture<T> stage;
+            try {
+                stage = write.get();
+            } catch (RuntimeException e) {
+                stage = CompletableFuture.failedFuture(e);
+            }
+            stage.whenComplete((value, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+                synchronized (this) {
+                    running--;
+                }
+                dispatch();
+            });
+        };
+        synchronized (this) {
+            waiting.addLast(task);
+        }
+        dispatch();
+        return result;
+    }
+
+    private void dispatch() {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilled) * rate);
+            refilled = now;
+            while (running < parallelism && !waiting.isEmpty()) {
+                if (tokens < 1) {
+                    if (!dispatchScheduled) {
+                        dispatchScheduled = true;
+                        long delay = (long) Math.ceil((1 - tokens) / rate);
+                        scheduler.schedule(() -> {
+                            synchronized (this) {
+                                dispatchScheduled = false;
+                            }
+                            dispatch();
+                        }, delay, TimeUnit.NANOSECONDS);
+                    }
+                    break;
+                }
+                tokens--;
+                running++;
+                ready.add(waiting.pollFirst());
+            }
+        }
+        ready.forEach(scheduler::execute);
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.openhab.binding.yandexstation.internal.YandexStationScenarios.SEPARATOR_CHARS;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.Channel;
+import org.openhab.core.thing.ChannelUID;
+
+/**
+ * The {@link YandexScenarioIndex} maps the scenario suffixes of the server actions to the channels and back.
+ * The suffix follows the separator at the end of the server action value, it is spoken with the answer
+ * of the scenario, so it is written only with the pause marks the previous versions of the binding used,
+ * they are not pronounced and do not change the intonation. The suffix starts with a format mark followed
+ * by at least one digit, the previous versions never wrote such a suffix, so their suffixes are not resolved
+ * to a wrong channel. The index is built when the scenarios are synchronized, so an executed scenario
+ * is resolved by scanning the value without allocations.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexScenarioIndex {
+    /**
+     * The first char of the suffix. The previous suffix started with it only when it was the whole suffix.
+     */
+    private static final char FORMAT_MARK = ',';
+    private static final char[] ALPHABET = ",.:".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    /**
+     * The digit by char, -1 if the char is not in the alphabet.
+     */
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < BASE; i++) {
+            DIGITS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private final @Nullable ChannelUID[] channels;
+    private final Map<ChannelUID, String> suffixes = new HashMap<>();
+
+    /**
+     * Instantiates a new scenario index.
+     *
+     * @param scenarios the scenarios of the channels by number
+     */
+    public YandexScenarioIndex(Map<Integer, YandexStationScenarios> scenarios) {
+        int size = scenarios.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+        channels = new @Nullable ChannelUID[size];
+        scenarios.forEach((number, scenario) -> {
+            Channel channel = scenario.getChannel();
+            if (number >= 0 && channel != null) {
+                channels[number] = channel.getUID();
+                suffixes.put(channel.getUID(), encode(number));
+            }
+        });
+    }
+
+    /**
+     * Gets channel of the scenario by number.
+     *
+     * @param number the scenario number
+     * @return the channel uid, null if there is no such scenario
+     */
+    public @Nullable ChannelUID getChannel(int number) {
+        return number >= 0 && number < channels.length ? channels[number] : null;
+    }
+
+    /**
+     * Gets scenario suffix of the channel.
+     *
+     * @param channelUID the channel uid
+     * @return the suffix, empty if the channel has no scenario
+     */
+    public String getSuffix(ChannelUID channelUID) {
+        return suffixes.getOrDefault(channelUID, "");
+    }
+
+    /**
+     * Gets count of indexed scenarios.
+     *
+     * @return the count
+     */
+    public int size() {
+        return suffixes.size();
+    }
+
+    /**
+     * Encodes scenario number.
+     *
+     * @param number the scenario number, not negative
+     * @return the suffix
+     */
+    public static String encode(int number) {
+        char[] chars = new char[32];
+        int i = chars.length;
+        int x = number;
+        do {
+            chars[--i] = ALPHABET[x % BASE];
+            x /= BASE;
+        } while (x > 0);
+        chars[--i] = FORMAT_MARK;
+        return new String(chars, i, chars.length - i);
+    }
+
+    /**
+     * Decodes scenario number from the suffix following the last separator of server action value.
+     *
+     * @param value the server action value
+     * @return the scenario number, -1 if the value has no valid suffix
+     */
+    public static int decode(String value) {
+        int start = value.lastIndexOf(SEPARATOR_CHARS) + SEPARATOR_CHARS.length();
+        if (start < SEPARATOR_CHARS.length() || start + 1 >= value.length() || value.charAt(start) != FORMAT_MARK) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = start + 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int digit = c < DIGITS.length ? DIGITS[c] : -1;
+            if (digit < 0 || number > (Integer.MAX_VALUE - digit) / BASE) {
+                return -1;
+            }
+            number = number * BASE + digit;
+        }
+        return number;
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.openhab.binding.yandexstation.internal.YandexStationScenarios.SEPARATOR_CHARS;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.core.thing.Channel;
+
+/**
+ * The {@link YandexScenarioSync} reconciles the scenarios of the channels with the scenarios of the Yandex account.
+ * The remote scenarios are indexed by name, the content hash of every scenario is compared with the hash
+ * of its last synchronized content, so only the scenarios which are really changed are written.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexScenarioSync {
+    /**
+     * The scenario write.
+     */
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * The scenario write of the sync plan.
+     */
+    public static class Action {
+        public final Type type;
+        /**
+         * The remote scenario id, empty for a new one.
+         */
+        public final String id;
+        public final String name;
+        public final String json;
+        public final String hash;
+
+        Action(Type type, String id, String name, String json, String hash) {
+            this.type = type;
+            this.id = id;
+            this.name = name;
+            this.json = json;
+            this.hash = hash;
+        }
+    }
+
+    private final Map<Integer, YandexStationScenarios> scenarios = new HashMap<>();
+    private final List<Action> actions = new ArrayList<>();
+    private final Map<String, String> hashes = new HashMap<>();
+    private int unchanged;
+
+    private final long started = System.nanoTime();
+    private int created;
+    private int updated;
+    private int deleted;
+    private int failed;
+
+    /**
+     * Plans scenario sync.
+     *
+     * @param channels the channels
+     * @param remote the remote scenarios
+     * @param synced the content hashes of the last synchronized scenarios by name
+     * @param encoder the encoder of scenario number
+     * @return the sync plan
+     */
+    public static YandexScenarioSync plan(List<Channel> channels, APIScenarioResponse.Scenarios[] remote,
+            Map<String, String> synced, IntFunction<String> encoder) {
+        YandexScenarioSync sync = new YandexScenarioSync();
+        Map<String, APIScenarioResponse.Scenarios> byName = new HashMap<>();
+        List<APIScenarioResponse.Scenarios> duplicates = new ArrayList<>();
+        for (APIScenarioResponse.Scenarios scenario : remote) {
+            if (scenario.name.startsWith(SEPARATOR_CHARS)) {
+                if (byName.putIfAbsent(scenario.name, scenario) != null) {
+                    duplicates.add(scenario);
+                }
+            }
+        }
+
+        int x = 0;
+        for (Channel channel : channels) {
+            if (channel.getLabel() == null) {
+                continue;
+            }
+            YandexStationScenarios yaScenario = new YandexStationScenarios();
+            String json = yaScenario.createScenario(channel, encoder.apply(x));
+            String name = SEPARATOR_CHARS + " " + channel.getLabel();
+            String hash = hash(json);
+            APIScenarioResponse.Scenarios scenario = byName.remove(name);
+            if (scenario == null) {
+                sync.actions.add(new Action(Type.CREATE, "", name, json, hash));
+            } else {
+                yaScenario.addScenario(scenario, channel);
+                if (hash.equals(synced.get(name))) {
+                    sync.hashes.put(name, hash);
+                    sync.unchanged++;
+                } else {
+                    sync.actions.add(new Action(Type.UPDATE, scenario.id, name, json, hash));
+                }
+            }
+            sync.scenarios.put(x, yaScenario);
+            x++;
+        }
+
+        // the scenarios of removed channels and duplicates
+        duplicates.addAll(byName.values());
+        duplicates.forEach(
+                scenario -> sync.actions.add(new Action(Type.DELETE, scenario.id, scenario.name, "", "")));
+        return sync;
+    }
+
+    /**
+     * Gets scenarios of the channels by number.
+     *
+     * @return the scenarios
+     */
+    public Map<Integer, YandexStationScenarios> getScenarios() {
+        return scenarios;
+    }
+
+    /**
+     * Gets index of the scenario suffixes.
+     *
+     * @return the index
+     */
+    public YandexScenarioIndex getIndex() {
+        return new YandexScenarioIndex(scenarios);
+    }
+
+    /**
+     * Gets scenario writes.
+     *
+     * @return the writes
+     */
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    /**
+     * Gets content hashes of the unchanged scenarios by name, the hashes of written scenarios are added
+     * by {@link #synced(Action)}.
+     *
+     * @return the hashes
+     */
+    public Map<String, String> getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Marks scenario write successful.
+     *
+     * @param action the write
+     */
+    public synchronized void synced(Action action) {
+        switch (action.type) {
+            case CREATE:
+                created++;
+                hashes.put(action.name, action.hash);
+                break;
+            case UPDATE:
+                updated++;
+                hashes.put(action.name, action.hash);
+                break;
+            default:
+                deleted++;
+        }
+    }
+
+    /**
+     * Marks scenario write failed.
+     *
+     * @param action the write
+     */
+    public synchronized void failed(Action action) {
+        failed++;
+    }
+
+    /**
+     * Gets sync report.
+     *
+     * @return the report
+     */
+    public synchronized String getReport() {
+        return String.format("created=%d updated=%d deleted=%d failed=%d unchanged=%d in %d ms", created, updated,
+                deleted, failed, unchanged, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Gets count of unchanged scenarios.
+     *
+     * @return the count
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Gets count of planned writes of the type.
+     *
+     * @param type the write type
+     * @return the count
+     */
+    public long count(Type type) {
+        return actions.stream().filter(action -> action.type == type).count();
+    }
+
+    private static String hash(String json) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(json.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform supports SHA-256
+            return Integer.toHexString(json.hashCode());
+        }
+    }
+
+    /**
+     * Parses content hashes, a line per scenario: name=hash.
+     *
+     * @param lines the lines
+     * @return the hashes by name
+     */
+    public static Map<String, String> parseHashes(List<String> lines) {
+        Map<String, String> hashes = new HashMap<>();
+        for (String line : lines) {
+            int i = line.lastIndexOf('=');
+            if (i > 0) {
+                hashes.put(line.substring(0, i), line.substring(i + 1));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Formats content hashes, a line per scenario: name=hash.
+     *
+     * @param hashes the hashes by name
+     * @return the text
+     */
+    public static String formatHashes(Map<String, String> hashes) {
+        StringBuilder sb = new StringBuilder();
+        hashes.forEach((name, hash) -> sb.append(name).append('=').append(hash).append('\n'));
+        return sb.toString();
+    }
+}
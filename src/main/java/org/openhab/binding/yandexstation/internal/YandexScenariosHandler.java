@@ -12,6 +12,10 @@
  */
 package org.openhab.binding.yandexstation.internal;
 
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.HEARTBEAT_INTERVAL;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.HEARTBEAT_MAX_MISSED;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.SCENARIO_PARALLELISM;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.SCENARIO_RATE;
 import static org.openhab.binding.yandexstation.internal.YandexStationScenarios.SEPARATOR_CHARS;
 import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_SCENARIOS;
 
@@ -21,39 +25,43 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
-import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
 import org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi;
+import org.openhab.binding.yandexstation.internal.yandexapi.QuasarResponseDecoder;
 import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiFactory;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIServerAction;
 import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.thing.Bridge;
-import org.openhab.core.thing.Channel;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingStatus;
 import org.openhab.core.thing.ThingStatusDetail;
+import org.openhab.core.thing.ThingStatusInfo;
 import org.openhab.core.thing.binding.BaseThingHandler;
 import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.types.Command;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
 /**
  * The {@link YandexScenariosHandler} is describing implementaion of api interface.
  *
@@ -63,21 +71,30 @@ import com.google.gson.JsonParser;
 public class YandexScenariosHandler extends BaseThingHandler {
     private final Logger logger = LoggerFactory.getLogger(YandexScenariosHandler.class);
 
-    private @Nullable ScheduledFuture<?> refreshPollingJob;
     public static final int reconnectInterval = 15;
+    /**
+     * Timeout of the scenarios initialization in sec.
+     */
+    private static final int INIT_TIMEOUT = 120;
+    /**
+     * Delay in sec before the failed scenarios initialization is retried.
+     */
+    private static final int INIT_RETRY_DELAY = 60;
     @Nullable
     YandexStationBridge yandexStationBridge;
     private @Nullable Future<?> initJob;
+    private @Nullable CompletableFuture<Void> initFuture;
     private QuasarApi quasar;
-    private WebSocketClient webSocketClient = new WebSocketClient();
+    private final YandexStationWebSocketFactory webSocketFactory;
     private YandexStationWebsocket yandexStationWebsocket = new YandexStationWebsocket();
+    private final YandexStationHeartbeat heartbeat = new YandexStationHeartbeat(scheduler, HEARTBEAT_INTERVAL,
+            HEARTBEAT_MAX_MISSED, yandexStationWebsocket::sendPing, rtt -> {
+            }, this::linkDead);
     private ClientUpgradeRequest clientUpgradeRequest = new ClientUpgradeRequest();
-    Map<Integer, YandexStationScenarios> scenarioList = new HashMap<>();
+    private YandexScenarioIndex scenarioIndex = new YandexScenarioIndex(Map.of());
     APIScenarioResponse scenarioResponse = new APIScenarioResponse();
     Map<String, String> device = new HashMap<>();
     private String url = "";
-    char[] base_chars = ",.:".toCharArray();
-    char[] digits = "01234567890".toCharArray();
     boolean dispose;
 
     /**
@@ -85,11 +102,14 @@ public class YandexScenariosHandler extends BaseThingHandler {
      *
      * @param thing the thing
      * @param apiFactory the api factory
+     * @param webSocketFactory the websocket factory
      * @throws ApiException the api exception
      */
-    public YandexScenariosHandler(Thing thing, YandexApiFactory apiFactory) throws ApiException {
+    public YandexScenariosHandler(Thing thing, YandexApiFactory apiFactory,
+            YandexStationWebSocketFactory webSocketFactory) throws ApiException {
         super(thing);
         this.quasar = (QuasarApi) apiFactory.getApiOnline(Objects.requireNonNull(thing.getBridgeUID()).getId());
+        this.webSocketFactory = webSocketFactory;
     }
 
     private void saveScenariosToFile() {
@@ -106,112 +126,152 @@ public class YandexScenariosHandler extends BaseThingHandler {
         });
     }
 
-    private void updateScenarios() throws ApiException {
-        List<Channel> channels = thing.getChannels();
-        var context = new Object() {
-            int x = 0;
-        };
-
-        for (Channel channel : channels) {
-            boolean isNew = true;
-            for (APIScenarioResponse.Scenarios scenario : scenarioResponse.scenarios) {
-                if (scenario.name.startsWith(SEPARATOR_CHARS)) {
-                    if (Objects.equals(channel.getLabel(), scenario.name.substring(4))) {
-                        YandexStationScenarios yaScenario = new YandexStationScenarios();
-                        yaScenario.addScenario(scenario, channel);
-                        scenarioList.put(context.x, yaScenario);
-                        String json = yaScenario.updateScenario(encode(context.x));
-                        if (quasar.updateScenario(scenario.id, json)) {
-                            logger.debug("scenario \"{}\" updated successfully", channel.getLabel());
-                        } else {
-                            logger.error("fail to update scenario \"{}\"", channel.getLabel());
-                        }
-                        context.x++;
-                        isNew = false;
-                    }
-                }
-            }
-            if (isNew) {
-                logger.debug("Channel \"{}\" is new. Creating...", channel.getLabel());
-                YandexStationScenarios scenario = new YandexStationScenarios();
-                String json = scenario.createScenario(channel, encode(context.x));
-                try {
-                    if (quasar.createScenario(json)) {
-                        logger.debug("scenario \"{}\" created successfully", channel.getLabel());
-                    } else {
-                        logger.error("fail to create scenario \"{}\"", channel.getLabel());
-                    }
-                } catch (ApiException ignored) {
+    private CompletableFuture<Void> syncScenarios() {
+        YandexScenarioSync sync = YandexScenarioSync.plan(thing.getChannels(), scenarioResponse.scenarios,
+                YandexScenarioSync.parseHashes(quasar.readScenarioHashes()), YandexScenarioIndex::encode);
+        scenarioIndex = sync.getIndex();
+        logger.debug("scenarios sync: {} to create, {} to update, {} to delete, {} unchanged",
+                sync.count(YandexScenarioSync.Type.CREATE), sync.count(YandexScenarioSync.Type.UPDATE),
+                sync.count(YandexScenarioSync.Type.DELETE), sync.getUnchanged());
+        YandexStationConfiguration bridgeConfig = yandexStationBridge != null ? yandexStationBridge.config : null;
+        YandexScenarioExecutor executor = bridgeConfig != null
+                ? new YandexScenarioExecutor(scheduler, bridgeConfig.scenarioParallelism, bridgeConfig.scenarioRate)
+                : new YandexScenarioExecutor(scheduler, SCENARIO_PARALLELISM, SCENARIO_RATE);
+        List<CompletableFuture<@Nullable Void>> writes = new ArrayList<>();
+        for (YandexScenarioSync.Action action : sync.getActions()) {
+            writes.add(executor.submit(() -> writeScenario(action)).handle((ok, e) -> {
+                if (e == null && ok) {
+                    logger.debug("scenario \"{}\" {} successfully", action.name, action.type);
+                    sync.synced(action);
+                } else {
+                    logger.error("fail to {} scenario \"{}\"", action.type, action.name);
+                    sync.failed(action);
                 }
-                scenarioList.put(context.x, scenario);
-                context.x++;
-            }
+                return null;
+            }));
         }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).thenRun(() -> {
+            quasar.writeScenarioHashes(YandexScenarioSync.formatHashes(sync.getHashes()));
+            logger.debug("scenarios synchronized: {}", sync.getReport());
+        });
     }
 
-    private void deleteScenarios() throws ApiException {
-        for (APIScenarioResponse.Scenarios scenario : scenarioResponse.scenarios) {
-            var ref = new Object() {
-                boolean present = false;
-            };
-            scenarioList.forEach((k, v) -> {
-                if (v.getScenarios() != null) {
-                    if (v.getScenarios().id.equals(scenario.id)) {
-                        ref.present = true;
-                    }
-                }
-            });
-            if (!ref.present) {
-                if (scenario.name.startsWith(SEPARATOR_CHARS)) {
-                    if (quasar.deleteScenario(scenario.id)) {
-                        logger.debug("scenario with id \"{}\" deleted successfully", scenario.id);
-                    } else {
-                        logger.error("fail to delete scenario with id \"{}\"", scenario.id);
-                    }
-                }
-            }
+    private CompletableFuture<Boolean> writeScenario(YandexScenarioSync.Action action) {
+        switch (action.type) {
+            case CREATE:
+                return quasar.createScenarioAsync(action.json);
+            case UPDATE:
+                return quasar.updateScenarioAsync(action.id, action.json);
+            default:
+                return quasar.deleteScenarioAsync(action.id);
         }
     }
 
-    private void initScenarios() throws ApiException {
-        url = quasar.getWssUrl();
-        scenarioResponse = quasar.getScenarios();
-        saveScenariosToFile();
-
-        device = quasar.getDevices();
-        updateScenarios();
-        deleteScenarios();
+    private CompletableFuture<Void> initScenarios() {
+        return quasar.getWssUrlAsync().thenCompose(wssUrl -> {
+            url = wssUrl;
+            // a failed list is not replaced by an empty one, the sync would recreate all the scenarios
+            return quasar.getScenariosAsync();
+        }).thenCompose(scenarios -> {
+            scenarioResponse = scenarios;
+            saveScenariosToFile();
+            return quasar.getDevicesAsync();
+        }).thenCompose(devices -> {
+            device = devices;
+            return syncScenarios();
+        });
     }
 
     @Override
     public void initialize() {
-        scenarioList = new HashMap<>();
+        scenarioIndex = new YandexScenarioIndex(Map.of());
+        initFuture = null;
         updateStatus(ThingStatus.UNKNOWN);
         yandexStationBridge = getBridgeHandler();
-        if (yandexStationBridge == null) {
+        YandexStationBridge bridge = yandexStationBridge;
+        if (bridge == null) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_UNINITIALIZED, "Check bridge");
+        } else if (bridge.getThing().getStatus() == ThingStatus.ONLINE) {
+            startInit(bridge);
         } else {
-            while (yandexStationBridge.getThing().getStatus() != ThingStatus.ONLINE) {
-                if (!yandexStationBridge.getThing().isEnabled()) {
-                    break;
-                }
-            }
+            // started by bridgeStatusChanged when the bridge is online
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+        }
+    }
 
-            try {
-                initScenarios();
-            } catch (ApiException e) {
-                logger.debug("Error {}", e.getMessage());
-                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, e.getMessage());
+    @Override
+    public void bridgeStatusChanged(ThingStatusInfo bridgeStatusInfo) {
+        if (bridgeStatusInfo.getStatus() == ThingStatus.ONLINE) {
+            if (initFuture != null) {
+                // the status is updated by the initialization and the websocket
+                return;
+            }
+            yandexStationBridge = getBridgeHandler();
+            YandexStationBridge bridge = yandexStationBridge;
+            if (bridge != null) {
+                updateStatus(ThingStatus.UNKNOWN);
+                startInit(bridge);
+                return;
             }
+        } else if (bridgeStatusInfo.getStatus() == ThingStatus.OFFLINE) {
+            // initialized and synchronized again when the bridge is back online
+            stopInit();
+            yandexStationWebsocket.closeWebsocketSession();
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
+            return;
+        }
+        super.bridgeStatusChanged(bridgeStatusInfo);
+    }
 
-            initJob = connect(0);
+    private synchronized void stopInit() {
+        CompletableFuture<Void> init = initFuture;
+        initFuture = null;
+        if (init != null) {
+            init.cancel(false);
+        }
+        cancelInitJob();
+        cancelPollingJob();
+    }
+
+    private synchronized void startInit(YandexStationBridge bridge) {
+        if (initFuture != null) {
+            return;
+        }
+        YandexStationConfiguration bridgeConfig = bridge.config;
+        if (bridgeConfig != null) {
+            quasar.setMaxResponseSize(bridgeConfig.maxResponseSize * 1024);
         }
+        CompletableFuture<Void> init = initScenarios().orTimeout(INIT_TIMEOUT, TimeUnit.SECONDS);
+        initFuture = init;
+        init.whenComplete((result, e) -> {
+            if (e instanceof CancellationException) {
+                // disposed
+                return;
+            }
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                String message = cause instanceof TimeoutException ? "Scenarios initialization timed out"
+                        : cause.getMessage();
+                logger.debug("Error {}", message);
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, message);
+                retryInit(bridge, init);
+                return;
+            }
+            initJob = connect(0);
+        });
     }
 
-    private void startRefreshPollingJob() {
-        if (refreshPollingJob == null || refreshPollingJob.isCancelled()) {
-            refreshPollingJob = scheduler.scheduleWithFixedDelay(() -> ping(), 0, 1, TimeUnit.MINUTES);
+    private synchronized void retryInit(YandexStationBridge bridge, CompletableFuture<Void> failed) {
+        if (initFuture != failed) {
+            return;
         }
+        initFuture = null;
+        initJob = scheduler.schedule(() -> startInit(bridge), INIT_RETRY_DELAY, TimeUnit.SECONDS);
+    }
+
+    private void linkDead() {
+        logger.warn("Yandex Scenarios websocket doesn't answer ping, reconnect");
+        yandexStationWebsocket.disconnectWebsocketSession();
     }
 
     @Override
@@ -244,7 +304,6 @@ public class YandexScenariosHandler extends BaseThingHandler {
             boolean thingReachable = connectStation(url);
             if (thingReachable) {
                 updateStatus(ThingStatus.ONLINE);
-                startRefreshPollingJob();
             }
         }, wait, TimeUnit.SECONDS);
     }
@@ -261,12 +320,12 @@ public class YandexScenariosHandler extends BaseThingHandler {
             return false;
         }
 
-        webSocketClient.getSslContextFactory().setTrustAll(true);
         yandexStationWebsocket.addMessageHandler(new YandexStationWebsocketInterface() {
             @Override
             public void onConnect(boolean connected) {
                 if (connected) {
                     updateStatus(ThingStatus.ONLINE);
+                    heartbeat.start();
                     logger.debug("websocket connected");
                 } else {
                     logger.debug("websocket connection failed");
@@ -277,10 +336,13 @@ public class YandexScenariosHandler extends BaseThingHandler {
             @Override
             public void onClose(int statusCode, String reason) {
                 logger.debug("Websocket connection closed");
-                if (!dispose) {
+                if (dispose) {
+                    dispose = false;
+                } else if (initFuture != null) {
                     reconnectWebsocket();
                 } else {
-                    dispose = false;
+                    // closed because the bridge is offline, the status is set by bridgeStatusChanged
+                    return;
                 }
                 updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR,
                         "Connection closed: " + statusCode + " - " + reason);
@@ -288,21 +350,15 @@ public class YandexScenariosHandler extends BaseThingHandler {
 
             @Override
             public void onMessage(String data) {
-                JsonObject json = JsonParser.parseString(data).getAsJsonObject();
-                if (json.get("operation").getAsString().equals("update_states")) {
-                    JsonObject message = JsonParser.parseString(json.get("message").getAsString()).getAsJsonObject();
-                    if (message.get("updated_devices").getAsJsonArray().get(0).getAsJsonObject().has("capabilities")) {
-                        if (message.get("updated_devices").getAsJsonArray().get(0).getAsJsonObject().get("capabilities")
-                                .getAsJsonArray().get(0).getAsJsonObject().get("type").getAsString()
-                                .equals("devices.capabilities.quasar.server_action")) {
-                            updateChannel(
-                                    message.get("updated_devices").getAsJsonArray().get(0).getAsJsonObject()
-                                            .get("capabilities").getAsJsonArray().get(0).getAsJsonObject().get("state")
-                                            .getAsJsonObject().get("value").getAsString(),
-                                    message.get("updated_devices").getAsJsonArray().get(0).getAsJsonObject().get("id")
-                                            .getAsString());
-                        }
-                    }
+                List<APIServerAction> actions;
+                try {
+                    actions = QuasarResponseDecoder.decodeServerActions(data);
+                } catch (IOException e) {
+                    logger.debug("Can't decode message: {}", e.getMessage());
+                    return;
+                }
+                if (!actions.isEmpty()) {
+                    updateChannels(actions);
                 }
             }
 
@@ -315,9 +371,9 @@ public class YandexScenariosHandler extends BaseThingHandler {
         });
 
         try {
-            webSocketClient.start();
             logger.info("YandexScenarios connect to {}", websocketAddress);
-            Future<?> session = webSocketClient.connect(yandexStationWebsocket, websocketAddress, clientUpgradeRequest);
+            Future<?> session = webSocketFactory.connect(yandexStationWebsocket, websocketAddress,
+                    clientUpgradeRequest);
             return session.isDone();
         } catch (Exception e) {
             // logger.error("Connection error {}", e.getMessage());
@@ -331,79 +387,56 @@ public class YandexScenariosHandler extends BaseThingHandler {
         }
     }
 
-    private void updateChannel(String value, String id) {
-        String subst = value.split(SEPARATOR_CHARS)[1];
-        int yaScnId = decode(subst);
-        if (scenarioList.containsKey(yaScnId)) {
-            YandexStationScenarios scn = scenarioList.get(yaScnId);
-            Map<String, String> device = this.device;
-            String event = device.get(id);
+    /**
+     * Triggers channels of the executed scenarios, a channel state is updated once per message.
+     */
+    private void updateChannels(List<APIServerAction> actions) {
+        Set<ChannelUID> triggered = new LinkedHashSet<>();
+        Map<String, String> device = this.device;
+        for (APIServerAction action : actions) {
+            int yaScnId = YandexScenarioIndex.decode(action.value);
+            if (yaScnId < 0) {
+                if (action.value.contains(SEPARATOR_CHARS)) {
+                    logger.warn("scenario {} is not synchronized yet, it is updated with the next sync", action.value);
+                } else {
+                    logger.debug("server action {} is not a scenario of the binding", action.value);
+                }
+                continue;
+            }
+            ChannelUID channelUID = scenarioIndex.getChannel(yaScnId);
+            if (channelUID == null) {
+                logger.error("unknown scenario {} executed", yaScnId);
+                continue;
+            }
+            String event = device.get(action.deviceId);
             if (event != null) {
-                triggerChannel(Objects.requireNonNull(scn.getChannel()).getUID(), event);
-                updateState(scn.getChannel().getUID(), OnOffType.ON);
+                triggerChannel(channelUID, event);
             } else {
-                logger.warn("Device with id {} is not recognized", id);
-                triggerChannel(Objects.requireNonNull(scn.getChannel()).getUID());
-                updateState(scn.getChannel().getUID(), OnOffType.ON);
+                logger.warn("Device with id {} is not recognized", action.deviceId);
+                triggerChannel(channelUID);
             }
-        } else {
-            logger.error("unknown scenario {} executed", yaScnId);
+            triggered.add(channelUID);
         }
+        triggered.forEach(channelUID -> updateState(channelUID, OnOffType.ON));
     }
 
     private void reconnectWebsocket() {
-        logger.debug("Yandex Scenario Handler try to reconnect websocket");
-        try {
-            url = quasar.getWssUrl();
-        } catch (ApiException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, e.getMessage());
+        if (initFuture == null) {
+            // stopped while the bridge is offline
+            return;
         }
-
+        logger.debug("Yandex Scenario Handler try to reconnect websocket");
         cancelInitJob();
         cancelPollingJob();
-        initJob = connect(reconnectInterval);
-    }
-
-    public String encode(int number) {
-        String character = "";
-        int x = 0;
-        char[] nmb = String.valueOf(number).toCharArray();
-        for (char digit : nmb) {
-            x = x * digits.length + String.valueOf(digits).indexOf(digit);
-        }
-        if (x == 0) {
-            character = String.valueOf(base_chars[0]);
-        } else {
-            while (x > 0) {
-                int dig = x % base_chars.length;
-                character = base_chars[dig] + character;
-                x = x / base_chars.length;
-            }
-        }
-        return character;
-    }
-
-    public int decode(String encode) {
-        String character = "";
-        int x = 0;
-        char[] nmb = encode.toCharArray();
-        for (char digit : nmb) {
-            x = x * base_chars.length + String.valueOf(base_chars).indexOf(digit);
-        }
-        if (x == 0) {
-            character = String.valueOf(digits[0]);
-        } else {
-            while (x > 0) {
-                int dig = x % digits.length;
-                character = digits[dig] + character;
-                x = x / digits.length;
+        quasar.getWssUrlAsync().whenComplete((wssUrl, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, cause.getMessage());
+            } else {
+                url = wssUrl;
             }
-        }
-        return Integer.parseInt(character);
-    }
-
-    private void ping() {
-        yandexStationWebsocket.sendMessage("{\"ping\"}");
+            initJob = connect(reconnectInterval);
+        });
     }
 
     private void cancelInitJob() {
@@ -415,11 +448,7 @@ public class YandexScenariosHandler extends BaseThingHandler {
     }
 
     private void cancelPollingJob() {
-        Future<?> job = refreshPollingJob;
-        if (job != null) {
-            job.cancel(true);
-            refreshPollingJob = null;
-        }
+        heartbeat.stop();
     }
 
     @Override
@@ -427,9 +456,8 @@ public class YandexScenariosHandler extends BaseThingHandler {
         dispose = true;
         logger.debug("{} dispose", getThing().getLabel());
         try {
-            webSocketClient.stop();
-            cancelInitJob();
-            cancelPollingJob();
+            stopInit();
+            yandexStationWebsocket.closeWebsocketSession();
         } catch (Exception ignored) {
         }
         super.dispose();
@@ -87,4 +87,49 @@ public class YandexStationBindingConstants {
      * The constant WSS_PORT.
      */
     public static final String WSS_PORT = "1961";
+
+    /**
+     * The default capacity of the websocket outbound queue.
+     */
+    public static final int OUTBOUND_QUEUE_CAPACITY = 32;
+
+    /**
+     * The default window in ms to coalesce volume and seek commands.
+     */
+    public static final int COMMAND_COALESCE_WINDOW = 150;
+
+    /**
+     * The default heartbeat interval in sec.
+     */
+    public static final int HEARTBEAT_INTERVAL = 30;
+
+    /**
+     * The default count of missed heartbeat replies after which the connection is dead.
+     */
+    public static final int HEARTBEAT_MAX_MISSED = 3;
+
+    /**
+     * The default Glagol device list time to live in sec.
+     */
+    public static final int DEVICE_LIST_TTL = 300;
+
+    /**
+     * The default count of stations started at a time.
+     */
+    public static final int STARTUP_PARALLELISM = 4;
+
+    /**
+     * The default max size in KB of the Quasar device and scenario list responses.
+     */
+    public static final int MAX_RESPONSE_SIZE = 2048;
+
+    /**
+     * The default count of scenario writes running at a time.
+     */
+    public static final int SCENARIO_PARALLELISM = 2;
+
+    /**
+     * The default max count of scenario writes started per sec.
+     */
+    public static final int SCENARIO_RATE = 2;
 }
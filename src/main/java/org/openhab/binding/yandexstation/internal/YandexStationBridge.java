@@ -12,8 +12,13 @@
  */
 package org.openhab.binding.yandexstation.internal;
 
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.DEVICE_LIST_TTL;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.STARTUP_PARALLELISM;
+
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.yandexstation.internal.discovery.YandexStationDiscoveryService;
@@ -21,7 +26,6 @@ import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
 import org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi;
 import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiFactory;
 import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiImpl;
-import org.openhab.binding.yandexstation.internal.yandexapi.YandexSession;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiDeviceResponse;
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.thing.Bridge;
@@ -53,9 +57,17 @@ public class YandexStationBridge extends BaseBridgeHandler {
     public QuasarApi quasarApi;
 
     /**
-     * The Devices list.
+     * The Glagol device registry.
+     */
+    private YandexStationDeviceRegistry deviceRegistry;
+    /**
+     * The Glagol device token manager.
      */
-    List<ApiDeviceResponse> devicesList;
+    private final YandexStationTokenManager tokenManager;
+    /**
+     * The station startup pipeline.
+     */
+    private YandexStationStartupPipeline startupPipeline;
     /**
      * The Config.
      */
@@ -72,6 +84,14 @@ public class YandexStationBridge extends BaseBridgeHandler {
         super(bridge);
         api = (YandexApiImpl) apiFactory.getApi();
         quasarApi = (QuasarApi) apiFactory.getApiOnline(this.getThing().getUID().getId());
+        deviceRegistry = new YandexStationDeviceRegistry(api, this::getYandexToken, DEVICE_LIST_TTL);
+        tokenManager = new YandexStationTokenManager(api, this::getYandexToken, scheduler);
+        startupPipeline = new YandexStationStartupPipeline(scheduler, STARTUP_PARALLELISM);
+    }
+
+    private String getYandexToken() {
+        YandexStationConfiguration config = this.config;
+        return config != null ? config.yandex_token : "";
     }
 
     @Override
@@ -108,7 +128,12 @@ public class YandexStationBridge extends BaseBridgeHandler {
     @Override
     public void dispose() {
         super.dispose();
-        logger.debug("{} disabled", getThing().getLabel());
+        quasarApi.flushCookies();
+        logger.debug(
+                "{} disabled, device registry: {}, device tokens: {}, startup: {}, credentials: {}, csrf: {}, auth: {}",
+                getThing().getLabel(), deviceRegistry.getStatistics(), tokenManager.getStatistics(),
+                startupPipeline.getStatistics(), quasarApi.getCredentialStatistics(), quasarApi.getCsrfStatistics(),
+                quasarApi.getAuthStatistics());
     }
 
     @Override
@@ -117,19 +142,25 @@ public class YandexStationBridge extends BaseBridgeHandler {
         YandexStationDiscoveryService.yandexTokenBridgeBusList.add(this);
         config = getConfigAs(YandexStationConfiguration.class);
         if (config != null) {
-            try {
-                YandexSession yaSession = quasarApi.createSession(config.username, config.password, config.cookies);
+            deviceRegistry = new YandexStationDeviceRegistry(api, this::getYandexToken, config.deviceListTtl);
+            startupPipeline = new YandexStationStartupPipeline(scheduler, config.startupParallelism);
+            quasarApi.setMaxResponseSize(config.maxResponseSize * 1024);
+            YandexStationConfiguration config = this.config;
+            quasarApi.createSessionAsync(config.username, config.password, config.cookies).thenCompose(yaSession -> {
                 if (!yaSession.musicToken.isEmpty()) {
                     config.yandex_token = yaSession.musicToken;
                     updateStatus(ThingStatus.ONLINE);
-                    devicesList = api.getDevices(config.yandex_token);
+                    return deviceRegistry.refreshAsync().<Void> thenApply(devices -> null);
                 } else {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
                             "Can not find Yandex music token");
+                    return CompletableFuture.<Void> completedFuture(null);
                 }
-            } catch (ApiException e) {
-                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
-            }
+            }).exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, cause.getMessage());
+                return null;
+            });
         } else {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "Check bridge configuration");
         }
@@ -140,11 +171,55 @@ public class YandexStationBridge extends BaseBridgeHandler {
     }
 
     /**
-     * Gets devices.
+     * Gets devices, the cached list is returned if it can't be downloaded.
      *
      * @return the devices
      */
     public List<ApiDeviceResponse> getDevices() {
-        return devicesList;
+        try {
+            return deviceRegistry.getDevices();
+        } catch (ApiException e) {
+            logger.debug("Can't get device list: {}", e.getMessage());
+            return deviceRegistry.getCachedDevices();
+        }
+    }
+
+    /**
+     * Gets devices asynchronously, the cached list is returned if it can't be downloaded.
+     *
+     * @return the future devices
+     */
+    public CompletableFuture<List<ApiDeviceResponse>> getDevicesAsync() {
+        return deviceRegistry.getDevicesAsync().exceptionally(e -> {
+            logger.debug("Can't get device list: {}", e.getMessage());
+            return deviceRegistry.getCachedDevices();
+        });
+    }
+
+    /**
+     * Gets station startup pipeline.
+     *
+     * @return the startup pipeline
+     */
+    public YandexStationStartupPipeline getStartupPipeline() {
+        return startupPipeline;
+    }
+
+    /**
+     * Gets device token manager.
+     *
+     * @return the token manager
+     */
+    public YandexStationTokenManager getTokenManager() {
+        return tokenManager;
+    }
+
+    /**
+     * Gets device registry.
+     *
+     * @return the device registry
+     */
+    public YandexStationDeviceRegistry getDeviceRegistry() {
+        return deviceRegistry;
     }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.types.State;
+
+/**
+ * The {@link YandexStationChannelStateCache} keeps the last state published to every channel of a station
+ * and suppresses updates that would publish the same value again.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationChannelStateCache {
+    private final Map<String, ChannelEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Checks new channel state against the last published one.
+     *
+     * @param channelId the channel id
+     * @param state the new state
+     * @return true if the state differs from the last published one and has to be published
+     */
+    public boolean update(String channelId, State state) {
+        ChannelEntry entry = entries.computeIfAbsent(channelId, id -> new ChannelEntry());
+        synchronized (entry) {
+            if (state.equals(entry.lastState)) {
+                entry.suppressed++;
+                return false;
+            }
+            entry.lastState = state;
+            entry.emitted++;
+            return true;
+        }
+    }
+
+    /**
+     * Forgets last published state of the channel, so the next update is always published.
+     *
+     * @param channelId the channel id
+     */
+    public void invalidate(String channelId) {
+        ChannelEntry entry = entries.get(channelId);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.lastState = null;
+            }
+        }
+    }
+
+    /**
+     * Forgets last published states of all channels.
+     */
+    public void invalidateAll() {
+        entries.keySet().forEach(this::invalidate);
+    }
+
+    /**
+     * Gets emitted updates count.
+     *
+     * @param channelId the channel id
+     * @return the emitted updates count
+     */
+    public long getEmitted(String channelId) {
+        ChannelEntry entry = entries.get(channelId);
+        return entry == null ? 0 : entry.emitted;
+    }
+
+    /**
+     * Gets suppressed updates count.
+     *
+     * @param channelId the channel id
+     * @return the suppressed updates count
+     */
+    public long getSuppressed(String channelId) {
+        ChannelEntry entry = entries.get(channelId);
+        return entry == null ? 0 : entry.suppressed;
+    }
+
+    /**
+     * Gets statistics as "channel -> emitted/suppressed" map.
+     *
+     * @return the statistics
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new TreeMap<>();
+        entries.forEach((id, entry) -> statistics.put(id, entry.emitted + "/" + entry.suppressed));
+        return statistics;
+    }
+
+    private static class ChannelEntry {
+        @Nullable
+        State lastState;
+        volatile long emitted;
+        volatile long suppressed;
+    }
+}
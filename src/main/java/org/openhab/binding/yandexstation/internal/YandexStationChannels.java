@@ -41,6 +41,10 @@ public enum YandexStationChannels {
      * Channel volume yandex station channels.
      */
     CHANNEL_VOLUME("volume", CHANNEL_GROUP_STATION),
+    /**
+     * Channel round trip time yandex station channels.
+     */
+    CHANNEL_STATE_RTT("rtt", CHANNEL_GROUP_STATION),
     /**
      * Channel command voice yandex station channels.
      */
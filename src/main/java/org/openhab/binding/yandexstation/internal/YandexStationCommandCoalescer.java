@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_REWIND;
+import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_SET_VOLUME;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommand;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandAck;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes;
+
+/**
+ * The {@link YandexStationCommandCoalescer} collapses bursts of idempotent commands (volume, seek).
+ * The first command of a type is held for the window, commands of the same type arriving meanwhile replace it,
+ * so only the last one is sent. All merged callers get the acknowledgement of the sent command.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationCommandCoalescer {
+    private static final Set<YandexStationCommandTypes> IDEMPOTENT = EnumSet.of(CMD_SET_VOLUME, CMD_REWIND);
+
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final Function<YandexStationCommand, CompletableFuture<YandexStationCommandAck>> sender;
+    private final Map<YandexStationCommandTypes, PendingCommand> pending = new EnumMap<>(
+            YandexStationCommandTypes.class);
+    private final Map<YandexStationCommandTypes, LongAdder> merged = new EnumMap<>(YandexStationCommandTypes.class);
+
+    /**
+     * Instantiates a new command coalescer.
+     *
+     * @param scheduler the scheduler
+     * @param windowMillis the window in ms, 0 disables coalescing
+     * @param sender sends the command to the station
+     */
+    public YandexStationCommandCoalescer(ScheduledExecutorService scheduler, int windowMillis,
+            Function<YandexStationCommand, CompletableFuture<YandexStationCommandAck>> sender) {
+        this.scheduler = scheduler;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.sender = sender;
+        IDEMPOTENT.forEach(type -> merged.put(type, new LongAdder()));
+    }
+
+    /**
+     * Submit command.
+     *
+     * @param command the command
+     * @return the station acknowledgement
+     */
+    public CompletableFuture<YandexStationCommandAck> submit(YandexStationCommand command) {
+        YandexStationCommandTypes type = command.getType();
+        if (windowMillis == 0 || type == null || !IDEMPOTENT.contains(type)) {
+            return sender.apply(command);
+        }
+        synchronized (pending) {
+            PendingCommand queued = pending.get(type);
+            if (queued != null) {
+                queued.command = command;
+                merged.get(type).increment();
+                return queued.future;
+            }
+            PendingCommand first = new PendingCommand(command);
+            pending.put(type, first);
+            scheduler.schedule(() -> flush(type), windowMillis, TimeUnit.MILLISECONDS);
+            return first.future;
+        }
+    }
+
+    private void flush(YandexStationCommandTypes type) {
+        PendingCommand queued;
+        synchronized (pending) {
+            queued = pending.remove(type);
+        }
+        if (queued != null) {
+            sender.apply(queued.command).whenComplete((ack, e) -> {
+                if (e != null) {
+                    queued.future.completeExceptionally(e);
+                } else {
+                    queued.future.complete(ack);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop all held commands, e.g. when the thing is disposed.
+     *
+     * @param cause the cause
+     */
+    public void cancelAll(Throwable cause) {
+        synchronized (pending) {
+            pending.values().forEach(queued -> queued.future.completeExceptionally(cause));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Gets count of merged commands.
+     *
+     * @param type the command type
+     * @return the merged count
+     */
+    public long getMerged(YandexStationCommandTypes type) {
+        LongAdder counter = merged.get(type);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new LinkedHashMap<>();
+        merged.forEach((type, counter) -> statistics.put(type.getCommand(), String.valueOf(counter.sum())));
+        return statistics;
+    }
+
+    private static class PendingCommand {
+        YandexStationCommand command;
+        final CompletableFuture<YandexStationCommandAck> future = new CompletableFuture<>();
+
+        PendingCommand(YandexStationCommand command) {
+            this.command = command;
+        }
+    }
+}
@@ -12,6 +12,15 @@
  */
 package org.openhab.binding.yandexstation.internal;
 
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.COMMAND_COALESCE_WINDOW;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.DEVICE_LIST_TTL;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.HEARTBEAT_INTERVAL;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.HEARTBEAT_MAX_MISSED;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.MAX_RESPONSE_SIZE;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.OUTBOUND_QUEUE_CAPACITY;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.SCENARIO_PARALLELISM;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.SCENARIO_RATE;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.STARTUP_PARALLELISM;
 import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.WSS_PORT;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -49,10 +58,70 @@ public class YandexStationConfiguration {
     public String yandex_token = "";
 
     /**
-     * The Reconnect interval.
+     * The max reconnect interval in sec.
      */
     public int reconnectInterval = 60;
 
+    /**
+     * The minimal interval between track position updates in sec.
+     */
+    public int positionUpdateInterval = 1;
+
+    /**
+     * The minimal track position change in sec to publish.
+     */
+    public int positionMinDelta = 1;
+
+    /**
+     * The max count of commands waiting to be sent to the station.
+     */
+    public int queueCapacity = OUTBOUND_QUEUE_CAPACITY;
+
+    /**
+     * The outbound queue overflow policy: DROP_OLDEST, COALESCE or REJECT.
+     */
+    public String queueOverflowPolicy = "DROP_OLDEST";
+
+    /**
+     * The window in ms in which volume and seek commands are coalesced, 0 disables coalescing.
+     */
+    public int commandCoalesceWindow = COMMAND_COALESCE_WINDOW;
+
+    /**
+     * The heartbeat interval in sec, 0 disables heartbeat.
+     */
+    public int heartbeatInterval = HEARTBEAT_INTERVAL;
+
+    /**
+     * The count of missed heartbeat replies after which the connection is reconnected.
+     */
+    public int heartbeatMaxMissed = HEARTBEAT_MAX_MISSED;
+
+    /**
+     * The Glagol device list time to live in sec (bridge).
+     */
+    public int deviceListTtl = DEVICE_LIST_TTL;
+
+    /**
+     * The count of stations started at a time (bridge).
+     */
+    public int startupParallelism = STARTUP_PARALLELISM;
+
+    /**
+     * The max size in KB of the Quasar device and scenario list responses (bridge).
+     */
+    public int maxResponseSize = MAX_RESPONSE_SIZE;
+
+    /**
+     * The count of scenario writes running at a time (bridge).
+     */
+    public int scenarioParallelism = SCENARIO_PARALLELISM;
+
+    /**
+     * The max count of scenario writes started per sec (bridge).
+     */
+    public int scenarioRate = SCENARIO_RATE;
+
     /**
      * The Server certificate.
      */
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexStationConnectionManager} is the connection state machine of a station websocket.
+ * Only one connect attempt is active at a time, failures reported several times for the same attempt
+ * (close and error) schedule a single reconnect. Reconnects are delayed by exponential backoff with jitter
+ * up to the max delay, so stations don't reconnect at the same instant after a network outage.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationConnectionManager {
+    /**
+     * The connection state.
+     */
+    public enum ConnectionState {
+        /**
+         * Not connected and no reconnect scheduled.
+         */
+        DISCONNECTED,
+        /**
+         * Connect attempt in progress.
+         */
+        CONNECTING,
+        /**
+         * Connected.
+         */
+        CONNECTED,
+        /**
+         * Waiting for the next connect attempt.
+         */
+        BACKING_OFF
+    }
+
+    /**
+     * The first reconnect delay in ms.
+     */
+    private static final long BASE_DELAY = 1000;
+    /**
+     * Time in sec to wait for a connect attempt result.
+     */
+    private static final int CONNECT_TIMEOUT = 30;
+
+    private final Logger logger = LoggerFactory.getLogger(YandexStationConnectionManager.class);
+    private final ScheduledExecutorService scheduler;
+    private final long maxDelay;
+    private final Runnable connector;
+    private final Runnable abort;
+
+    private ConnectionState state = ConnectionState.DISCONNECTED;
+    private int failures;
+    private long generation;
+    private long disconnectedAt;
+    private @Nullable ScheduledFuture<?> job;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final YandexStationLatencyHistogram timeToReconnect = new YandexStationLatencyHistogram();
+
+    /**
+     * Instantiates a new connection manager.
+     *
+     * @param scheduler the scheduler
+     * @param maxDelaySec the max reconnect delay in sec
+     * @param connector starts a connect attempt, the result is reported by {@link #connected()} or
+     *            {@link #failed(String)}
+     * @param abort aborts the pending connect attempt, run when it times out so a late connect doesn't open
+     *            a second session
+     */
+    public YandexStationConnectionManager(ScheduledExecutorService scheduler, int maxDelaySec, Runnable connector,
+            Runnable abort) {
+        this.scheduler = scheduler;
+        this.maxDelay = Math.max(BASE_DELAY, maxDelaySec * 1000L);
+        this.connector = connector;
+        this.abort = abort;
+    }
+
+    /**
+     * Start connecting, the first attempt is delayed by a random jitter.
+     */
+    public synchronized void start() {
+        if (state == ConnectionState.DISCONNECTED) {
+            failures = 0;
+            disconnectedAt = System.nanoTime();
+            schedule(ThreadLocalRandom.current().nextLong(BASE_DELAY));
+        }
+    }
+
+    /**
+     * Stop connecting, cancels scheduled attempt.
+     */
+    public synchronized void stop() {
+        state = ConnectionState.DISCONNECTED;
+        generation++;
+        cancelJob();
+    }
+
+    /**
+     * Reports the websocket is connected.
+     */
+    public synchronized void connected() {
+        if (state == ConnectionState.DISCONNECTED || state == ConnectionState.CONNECTED) {
+            return;
+        }
+        cancelJob();
+        generation++;
+        state = ConnectionState.CONNECTED;
+        failures = 0;
+        successes.increment();
+        timeToReconnect.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - disconnectedAt));
+    }
+
+    /**
+     * Reports the connect attempt failed or the connection is lost. Repeated reports are ignored
+     * until the next attempt.
+     *
+     * @param reason the reason
+     */
+    public synchronized void failed(String reason) {
+        if (state == ConnectionState.DISCONNECTED || state == ConnectionState.BACKING_OFF) {
+            return;
+        }
+        if (state == ConnectionState.CONNECTED) {
+            disconnectedAt = System.nanoTime();
+        }
+        long delay = Math.min(maxDelay, BASE_DELAY << Math.min(failures, 20));
+        // equal jitter: half of the delay is fixed, the other half is random
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        failures++;
+        logger.debug("Connection failed: {}, reconnect in {} ms", reason, delay);
+        schedule(delay);
+    }
+
+    private void schedule(long delay) {
+        cancelJob();
+        state = ConnectionState.BACKING_OFF;
+        long attempt = ++generation;
+        job = scheduler.schedule(() -> attempt(attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void attempt(long attempt) {
+        synchronized (this) {
+            if (attempt != generation || state != ConnectionState.BACKING_OFF) {
+                return;
+            }
+            state = ConnectionState.CONNECTING;
+            attempts.increment();
+            job = scheduler.schedule(() -> timeout(attempt), CONNECT_TIMEOUT, TimeUnit.SECONDS);
+        }
+        try {
+            connector.run();
+        } catch (RuntimeException e) {
+            failed(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void timeout(long attempt) {
+        synchronized (this) {
+            if (attempt != generation || state != ConnectionState.CONNECTING) {
+                return;
+            }
+            failed("connect timeout");
+        }
+        try {
+            abort.run();
+        } catch (RuntimeException e) {
+            logger.debug("Abort of timed out connect failed: {}", e.getMessage());
+        }
+    }
+
+    private void cancelJob() {
+        ScheduledFuture<?> current = job;
+        if (current != null) {
+            current.cancel(false);
+            job = null;
+        }
+    }
+
+    /**
+     * Gets state.
+     *
+     * @return the state
+     */
+    public synchronized ConnectionState getState() {
+        return state;
+    }
+
+    /**
+     * Gets connect attempts count.
+     *
+     * @return the attempts count
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Gets successful connects count.
+     *
+     * @return the successes count
+     */
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    /**
+     * Gets time to reconnect histogram.
+     *
+     * @return the histogram
+     */
+    public YandexStationLatencyHistogram getTimeToReconnect() {
+        return timeToReconnect;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("state=%s attempts=%d successes=%d time to reconnect %s", getState(), getAttempts(),
+                getSuccesses(), timeToReconnect);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
+import org.openhab.binding.yandexstation.internal.yandexapi.YandexApi;
+import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiImpl;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiDeviceResponse;
+
+/**
+ * The {@link YandexStationDeviceRegistry} caches the Glagol device list of a bridge indexed by device id.
+ * The list is downloaded again when it is older than the TTL, concurrent callers share one download.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationDeviceRegistry {
+    private final YandexApiImpl api;
+    private final Supplier<String> yandexToken;
+    private final long ttlNanos;
+
+    private volatile Map<String, ApiDeviceResponse> devices = Collections.emptyMap();
+    private volatile long fetchedAt;
+    private volatile boolean loaded;
+    private @Nullable CompletableFuture<Map<String, ApiDeviceResponse>> refreshing;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+
+    /**
+     * Instantiates a new device registry.
+     *
+     * @param api the api
+     * @param yandexToken supplies the current yandex token
+     * @param ttlSec the device list time to live in sec
+     */
+    public YandexStationDeviceRegistry(YandexApiImpl api, Supplier<String> yandexToken, int ttlSec) {
+        this.api = api;
+        this.yandexToken = yandexToken;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSec));
+    }
+
+    /**
+     * Gets devices, the list is downloaded if it is stale.
+     *
+     * @return the devices
+     * @throws ApiException the api exception
+     */
+    public List<ApiDeviceResponse> getDevices() throws ApiException {
+        return YandexApi.await(getDevicesAsync());
+    }
+
+    /**
+     * Gets devices asynchronously, the list is downloaded if it is stale.
+     *
+     * @return the future devices
+     */
+    public CompletableFuture<List<ApiDeviceResponse>> getDevicesAsync() {
+        return fresh().thenApply(byId -> new ArrayList<>(byId.values()));
+    }
+
+    /**
+     * Gets device by id, the list is downloaded if it is stale.
+     *
+     * @param deviceId the device id
+     * @return the device or null if there is no such device
+     * @throws ApiException the api exception
+     */
+    public @Nullable ApiDeviceResponse getDevice(String deviceId) throws ApiException {
+        return YandexApi.await(getDeviceAsync(deviceId));
+    }
+
+    /**
+     * Gets device by id asynchronously, the list is downloaded if it is stale.
+     *
+     * @param deviceId the device id
+     * @return the future device, completed with null if there is no such device
+     */
+    public CompletableFuture<@Nullable ApiDeviceResponse> getDeviceAsync(String deviceId) {
+        return fresh().thenApply(byId -> byId.get(deviceId));
+    }
+
+    /**
+     * Gets devices without download.
+     *
+     * @return the cached devices
+     */
+    public List<ApiDeviceResponse> getCachedDevices() {
+        return new ArrayList<>(devices.values());
+    }
+
+    /**
+     * Marks the device list as stale, the next lookup downloads it.
+     */
+    public void invalidate() {
+        loaded = false;
+    }
+
+    private CompletableFuture<Map<String, ApiDeviceResponse>> fresh() {
+        if (loaded && System.nanoTime() - fetchedAt < ttlNanos) {
+            hits.increment();
+            return CompletableFuture.completedFuture(devices);
+        }
+        return refreshAsync();
+    }
+
+    /**
+     * Downloads the device list now, joins a download in progress.
+     *
+     * @return the devices by id
+     * @throws ApiException the api exception
+     */
+    public Map<String, ApiDeviceResponse> refresh() throws ApiException {
+        return YandexApi.await(refreshAsync());
+    }
+
+    /**
+     * Downloads the device list asynchronously, joins a download in progress.
+     *
+     * @return the future devices by id
+     */
+    public synchronized CompletableFuture<Map<String, ApiDeviceResponse>> refreshAsync() {
+        CompletableFuture<Map<String, ApiDeviceResponse>> future = refreshing;
+        if (future != null) {
+            return future;
+        }
+        fetches.increment();
+        CompletableFuture<Map<String, ApiDeviceResponse>> download = api.getDevicesAsync(yandexToken.get())
+                .thenApply(list -> {
+                    Map<String, ApiDeviceResponse> byId = new LinkedHashMap<>();
+                    for (ApiDeviceResponse device : list) {
+                        byId.put(device.id, device);
+                    }
+                    devices = Collections.unmodifiableMap(byId);
+                    fetchedAt = System.nanoTime();
+                    loaded = true;
+                    return devices;
+                });
+        refreshing = download;
+        download.whenComplete((result, e) -> {
+            synchronized (this) {
+                if (refreshing == download) {
+                    refreshing = null;
+                }
+            }
+        });
+        return download;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("devices=%d hits=%d fetches=%d", devices.size(), hits.sum(), fetches.sum());
+    }
+}
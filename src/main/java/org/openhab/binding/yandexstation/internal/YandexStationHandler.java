@@ -18,6 +18,7 @@ import static org.openhab.binding.yandexstation.internal.YandexStationChannels.C
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_ALICE;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_PLAYING;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_PLAYLIST_TYPE;
+import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_RTT;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_SOFTWARE;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_TRACK_COVER_URI;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_TRACK_DURATION;
@@ -31,6 +32,7 @@ import static org.openhab.binding.yandexstation.internal.YandexStationChannels.C
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_STATE_TRACK_TYPE;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_VOLUME;
 import static org.openhab.binding.yandexstation.internal.YandexStationChannels.CHANNEL_VOLUME_CONTROL;
+import static org.openhab.binding.yandexstation.internal.YandexStationRequestTracker.REQUEST_TIMEOUT;
 import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_NEXT;
 import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_PING;
 import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_PLAY;
@@ -42,6 +44,7 @@ import static org.openhab.binding.yandexstation.internal.commands.YandexStationC
 import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_STOP;
 import static org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes.CMD_SW_VERSION;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collection;
@@ -49,25 +52,27 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
-import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.openhab.binding.yandexstation.internal.actions.things.YandexStationThingActions;
 import org.openhab.binding.yandexstation.internal.commands.FormUpdate;
 import org.openhab.binding.yandexstation.internal.commands.FormUpdateSlot;
 import org.openhab.binding.yandexstation.internal.commands.ServerActionEvent;
 import org.openhab.binding.yandexstation.internal.commands.ServerActionPayload;
 import org.openhab.binding.yandexstation.internal.commands.YandexStationCommand;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandAck;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes;
 import org.openhab.binding.yandexstation.internal.commands.YandexStationSendPacket;
-import org.openhab.binding.yandexstation.internal.dto.YandexStationPlayerState;
-import org.openhab.binding.yandexstation.internal.dto.YandexStationResponse;
-import org.openhab.binding.yandexstation.internal.dto.YandexStationState;
+import org.openhab.binding.yandexstation.internal.dto.YandexStationFrame;
+import org.openhab.binding.yandexstation.internal.dto.YandexStationFrameDecoder;
 import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
 import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiFactory;
 import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiImpl;
@@ -75,11 +80,13 @@ import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiDeviceRe
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.NextPreviousType;
-import org.openhab.core.library.types.OnOffType;
 import org.openhab.core.library.types.PercentType;
 import org.openhab.core.library.types.PlayPauseType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.RewindFastforwardType;
 import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.MetricPrefix;
+import org.openhab.core.library.unit.Units;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
@@ -93,8 +100,6 @@ import org.openhab.core.types.State;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.Gson;
-
 /**
  * The {@link YandexStationHandler} is responsible for handling commands, which are
  * sent to one of the channels.
@@ -105,10 +110,8 @@ import com.google.gson.Gson;
 public class YandexStationHandler extends BaseThingHandler {
 
     private final Logger logger = LoggerFactory.getLogger(YandexStationHandler.class);
-    private @Nullable ScheduledFuture<?> refreshPollingJob;
     private @Nullable YandexStationConfiguration config;
-    private @Nullable Future<?> initJob;
-    private WebSocketClient webSocketClient = new WebSocketClient();
+    private final YandexStationWebSocketFactory webSocketFactory;
     private YandexStationWebsocket yandexStationWebsocket = new YandexStationWebsocket();
     private ClientUpgradeRequest clientUpgradeRequest = new ClientUpgradeRequest();
     private @Nullable URI websocketAddress;
@@ -116,30 +119,50 @@ public class YandexStationHandler extends BaseThingHandler {
     private @Nullable YandexApiImpl api;
 
     private Boolean isConnected = false;
+    private boolean tokenRegistered;
+    private @Nullable CompletableFuture<Void> startupJob;
 
     /**
      * The Yandex station bridge.
      */
     @Nullable
     YandexStationBridge yandexStationBridge;
-    private YandexStationState stationState = new YandexStationState();
+    private final YandexStationFrame stationState = new YandexStationFrame();
+    private final YandexStationFrameDecoder frameDecoder = new YandexStationFrameDecoder();
+    private final YandexStationChannelStateCache channelStateCache = new YandexStationChannelStateCache();
+    private final YandexStationRequestTracker requestTracker = new YandexStationRequestTracker();
+    private YandexStationPositionCoalescer positionCoalescer = new YandexStationPositionCoalescer(0, 0);
+    private YandexStationConnectionManager connectionManager = new YandexStationConnectionManager(scheduler, 0,
+            () -> {
+            }, () -> {
+            });
+    private YandexStationHeartbeat heartbeat = new YandexStationHeartbeat(scheduler, 0, 1,
+            () -> CompletableFuture.completedFuture(null), rtt -> {
+            }, () -> {
+            });
+    private YandexStationCommandCoalescer commandCoalescer = new YandexStationCommandCoalescer(scheduler, 0,
+            command -> sendPacket(Objects.requireNonNull(config).device_token, command));
 
     /**
      * Instantiates a new Yandex station handler.
      *
      * @param thing the thing
      * @param apiFactory the api factory
+     * @param webSocketFactory the websocket factory
      * @throws ApiException the api exception
      */
-    public YandexStationHandler(Thing thing, YandexApiFactory apiFactory) throws ApiException {
+    public YandexStationHandler(Thing thing, YandexApiFactory apiFactory, YandexStationWebSocketFactory webSocketFactory)
+            throws ApiException {
         super(thing);
         this.api = (YandexApiImpl) apiFactory.getApi();
+        this.webSocketFactory = webSocketFactory;
     }
 
     private Integer prevVolume = 0;
 
     @Override
     public void handleCommand(ChannelUID channelUID, Command command) {
+        invalidateChannelState(channelUID.getId());
         if (CHANNEL_COMMAND_VOICE.getName().equals(channelUID.getId())) {
             if (command instanceof StringType) {
                 sendVoiceCommand(command.toString());
@@ -225,86 +248,212 @@ public class YandexStationHandler extends BaseThingHandler {
     public void initialize() {
         logger.debug("Initialize Yandex Station Binding");
         config = getConfigAs(YandexStationConfiguration.class);
+        positionCoalescer = new YandexStationPositionCoalescer(config.positionUpdateInterval, config.positionMinDelta);
+        yandexStationWebsocket.setOutboundQueue(new YandexStationOutboundQueue(config.queueCapacity,
+                YandexStationOutboundQueue.OverflowPolicy.from(config.queueOverflowPolicy)));
+        commandCoalescer = new YandexStationCommandCoalescer(scheduler, config.commandCoalesceWindow,
+                command -> sendPacket(Objects.requireNonNull(config).device_token, command));
         updateStatus(ThingStatus.UNKNOWN);
         yandexStationBridge = getBridgeHandler();
         if (yandexStationBridge == null) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_UNINITIALIZED, "Check bridge");
         } else {
-            receiveDeviceToken();
-            logger.info("Connect to Yandex Station: {} with IP {}", config.device_id, config.hostname);
-            initJob = connect(config.reconnectInterval);
-            if (refreshPollingJob == null || refreshPollingJob.isCancelled()) {
-                refreshPollingJob = scheduler.scheduleWithFixedDelay(
-                        () -> ping(Objects.requireNonNull(config).device_token), 1, 1, TimeUnit.MINUTES);
-            }
+            connectionManager = new YandexStationConnectionManager(scheduler, config.reconnectInterval,
+                    this::connect, this::cancelWebSocketSession);
+            heartbeat = new YandexStationHeartbeat(scheduler, config.heartbeatInterval, config.heartbeatMaxMissed,
+                    () -> ping(Objects.requireNonNull(config).device_token),
+                    rtt -> updateState(CHANNEL_STATE_RTT.getName(),
+                            new QuantityType<>(rtt, MetricPrefix.MILLI(Units.SECOND))),
+                    this::linkDead);
+            registerMessageHandler();
+
+            // device lookup and token fetch are async, the pipeline bounds how many stations run them at a time
+            YandexStationStartupPipeline startup = yandexStationBridge.getStartupPipeline();
+            startup.started(thing.getUID().getId());
+            startupJob = startup.submitAsync(() -> receiveDeviceToken(false)).thenRun(() -> {
+                YandexStationConfiguration config = Objects.requireNonNull(this.config);
+                logger.info("Connect to Yandex Station: {} with IP {}", config.device_id, config.hostname);
+                connectionManager.start();
+            });
         }
     }
 
     @Override
     public void dispose() {
         super.dispose();
-        if (refreshPollingJob != null && !refreshPollingJob.isCancelled()) {
-            refreshPollingJob.cancel(true);
-            refreshPollingJob = null;
+        CompletableFuture<Void> startup = startupJob;
+        if (startup != null) {
+            startup.cancel(false);
+            startupJob = null;
         }
-        try {
-            webSocketClient.stop();
-            Future<?> job = initJob;
-            if (job != null) {
-                job.cancel(true);
-                initJob = null;
+        heartbeat.stop();
+        connectionManager.stop();
+        YandexStationBridge bridge = yandexStationBridge;
+        if (bridge != null) {
+            bridge.getStartupPipeline().cancelled(thing.getUID().getId());
+            if (tokenRegistered) {
+                bridge.getTokenManager().unregister(Objects.requireNonNull(config).device_id);
+                tokenRegistered = false;
             }
-        } catch (Exception e) {
-            logger.error("Could not stop webSocketClient,  message {}", e.getMessage());
         }
+        yandexStationWebsocket.removeMessageHandler();
+        yandexStationWebsocket.closeWebsocketSession();
+        cancelWebSocketSession();
+        logger.debug("Channel updates emitted/suppressed: {}", channelStateCache.getStatistics());
+        logger.debug("Command latency: {}", requestTracker.getStatistics());
+        logger.debug("Outbound queue: {}", yandexStationWebsocket.getOutboundQueue().getStatistics());
+        logger.debug("Merged commands: {}", commandCoalescer.getStatistics());
+        logger.debug("Connection: {}", connectionManager.getStatistics());
+        logger.debug("Heartbeat: {}", heartbeat.getStatistics());
+        commandCoalescer.cancelAll(new CancellationException("Thing disposed"));
+        yandexStationWebsocket.getOutboundQueue().clear();
+        requestTracker.failAll(new CancellationException("Thing disposed"));
     }
 
     @Override
     protected void updateState(String channelID, State state) {
-        super.updateState(channelID, state);
+        if (channelStateCache.update(channelID, state)) {
+            super.updateState(channelID, state);
+        }
+    }
+
+    /**
+     * The station may ignore or clamp a command while autoupdate has already set the requested value,
+     * so the next report of the channel and of the states the command changes is always published.
+     */
+    private void invalidateChannelState(String channelId) {
+        channelStateCache.invalidate(channelId);
+        if (CHANNEL_VOLUME_CONTROL.getName().equals(channelId)) {
+            channelStateCache.invalidate(CHANNEL_VOLUME.getName());
+        } else if (CHANNEL_PLAYER_CONTROL.getName().equals(channelId)) {
+            channelStateCache.invalidate(CHANNEL_STATE_PLAYING.getName());
+            channelStateCache.invalidate(CHANNEL_STATE_TRACK_POSITION.getName());
+        }
+    }
+
+    @Override
+    public void channelLinked(ChannelUID channelUID) {
+        channelStateCache.invalidate(channelUID.getId());
+        super.channelLinked(channelUID);
+    }
+
+    /**
+     * Gets channel state cache.
+     *
+     * @return the channel state cache
+     */
+    public YandexStationChannelStateCache getChannelStateCache() {
+        return channelStateCache;
+    }
+
+    /**
+     * Gets connection manager.
+     *
+     * @return the connection manager
+     */
+    public YandexStationConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Gets heartbeat.
+     *
+     * @return the heartbeat
+     */
+    public YandexStationHeartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    /**
+     * Gets command coalescer.
+     *
+     * @return the command coalescer
+     */
+    public YandexStationCommandCoalescer getCommandCoalescer() {
+        return commandCoalescer;
+    }
+
+    /**
+     * Gets request tracker.
+     *
+     * @return the request tracker
+     */
+    public YandexStationRequestTracker getRequestTracker() {
+        return requestTracker;
     }
 
     private void setWebSocketConnected(boolean connected) {
         isConnected = connected;
     }
 
-    private Future<?> connect(int wait) {
-        logger.warn("Try connect after: {} sec", wait);
-        return scheduler.schedule(() -> {
-            if (config == null) {
-                updateStatus(ThingStatus.UNINITIALIZED, ThingStatusDetail.CONFIGURATION_ERROR);
-            } else {
-                updateStatus(ThingStatus.OFFLINE);
-                if (config.device_token.isEmpty()) {
-                    logger.warn("Device token is empty");
-                    receiveDeviceToken();
-                }
-                connectStation(config);
-                logger.debug("Yandex Station connected: {}", isConnected);
-                if (isConnected) {
-                    updateStatus(ThingStatus.ONLINE);
+    private void connect() {
+        YandexStationConfiguration config = Objects.requireNonNull(this.config);
+        if (config.device_token.isEmpty()) {
+            logger.warn("Device token is empty");
+            receiveDeviceToken(false).whenComplete((result, e) -> {
+                if (e != null) {
+                    connectionManager.failed(String.valueOf(e.getMessage()));
                 } else {
-                    reconnectWebsocket();
+                    openWebsocket();
                 }
-            }
-        }, wait, TimeUnit.SECONDS);
+            });
+        } else {
+            openWebsocket();
+        }
     }
 
-    private void connectStation(@Nullable YandexStationConfiguration config) {
+    private void openWebsocket() {
+        YandexStationConfiguration config = Objects.requireNonNull(this.config);
         try {
             websocketAddress = new URI("wss://" + config.hostname + ":" + config.port);
         } catch (URISyntaxException e) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.CONFIGURATION_ERROR,
                     "Initialize web socket failed: " + e.getMessage());
+            connectionManager.stop();
+            return;
+        }
+        logger.debug("Connect to Yandex Station: {}", websocketAddress);
+        cancelWebSocketSession();
+        try {
+            webSocketSession = webSocketFactory.connect(yandexStationWebsocket, websocketAddress, clientUpgradeRequest);
+        } catch (Exception e) {
+            logger.error("Connection error {}", e.getMessage());
             setWebSocketConnected(false);
+            connectionManager.failed(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private synchronized void cancelWebSocketSession() {
+        Future<Session> session = webSocketSession;
+        if (session != null) {
+            session.cancel(true);
+            webSocketSession = null;
         }
+    }
 
-        webSocketClient.getSslContextFactory().setTrustAll(true);
+    private void linkDead() {
+        logger.warn("Yandex Station {} doesn't answer ping, reconnect", Objects.requireNonNull(config).device_id);
+        heartbeat.stop();
+        setWebSocketConnected(false);
+        updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, "Station doesn't answer ping");
+        yandexStationWebsocket.disconnectWebsocketSession();
+        connectionManager.failed("heartbeat");
+    }
+
+    private void registerMessageHandler() {
         yandexStationWebsocket.addMessageHandler(new YandexStationWebsocketInterface() {
             @Override
             public void onConnect(boolean connected) {
                 setWebSocketConnected(connected);
                 if (connected) {
+                    connectionManager.connected();
+                    YandexStationBridge bridge = yandexStationBridge;
+                    if (bridge != null) {
+                        bridge.getStartupPipeline().connected(thing.getUID().getId());
+                    }
+                    channelStateCache.invalidateAll();
+                    positionCoalescer.reset();
+                    heartbeat.start();
                     updateStatus(ThingStatus.ONLINE);
                     logger.debug("websocket connected");
 
@@ -313,6 +462,7 @@ public class YandexStationHandler extends BaseThingHandler {
                 } else {
                     logger.debug("websocket connection failed");
                     updateStatus(ThingStatus.OFFLINE);
+                    connectionManager.failed("connection failed");
                 }
             }
 
@@ -320,22 +470,28 @@ public class YandexStationHandler extends BaseThingHandler {
             public void onClose(int statusCode, String reason) throws Exception {
                 logger.debug("Websocket connection closed");
                 setWebSocketConnected(false);
+                heartbeat.stop();
+                requestTracker.failSent(new IOException("Connection closed: " + statusCode + " - " + reason));
                 updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR,
                         "Connection closed: " + statusCode + " - " + reason);
 
                 if (statusCode == 4000) {
-                    receiveDeviceToken();
+                    // reconnect when the new token is there
+                    receiveDeviceToken(true).whenComplete(
+                            (result, e) -> connectionManager.failed("closed " + statusCode));
+                } else {
+                    connectionManager.failed("closed " + statusCode);
                 }
-                reconnectWebsocket();
             }
 
             @Override
             public void onMessage(String data) {
                 logger.trace("Data received: {}", data);
-                Gson gson = new Gson();
-                YandexStationResponse response = gson.fromJson(data, YandexStationResponse.class);
-                if (response != null) {
-                    processReceivedData(response);
+                try {
+                    frameDecoder.decode(data, stationState);
+                    processReceivedData(stationState);
+                } catch (IOException e) {
+                    logger.debug("Can't decode station message: {}", e.getMessage());
                 }
             }
 
@@ -343,28 +499,9 @@ public class YandexStationHandler extends BaseThingHandler {
             public void onError(Throwable cause) {
                 logger.error("Websocket error: {}", cause.getMessage());
                 updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, cause.getMessage());
-                reconnectWebsocket();
+                connectionManager.failed(String.valueOf(cause.getMessage()));
             }
         });
-
-        try {
-            webSocketClient.start();
-            webSocketSession = webSocketClient.connect(yandexStationWebsocket, websocketAddress, clientUpgradeRequest);
-        } catch (Exception e) {
-            logger.error("Connection error {}", e.getMessage());
-            setWebSocketConnected(false);
-        }
-    }
-
-    private void reconnectWebsocket() {
-        logger.debug("Try to reconnect");
-
-        Future<?> job = initJob;
-        if (job != null) {
-            job.cancel(true);
-            initJob = null;
-        }
-        initJob = connect(config.reconnectInterval);
     }
 
     @Override
@@ -376,21 +513,21 @@ public class YandexStationHandler extends BaseThingHandler {
      * Send voice command.
      *
      * @param text the text
+     * @return the station acknowledgement
      */
-    public void sendVoiceCommand(String text) {
+    public CompletableFuture<YandexStationCommandAck> sendVoiceCommand(String text) {
         logger.debug("sendVoiceCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_SENT_TEXT, text);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send tts command.
      *
      * @param text the text
+     * @return the station acknowledgement
      */
-    public void sendTtsCommand(String text) {
+    public CompletableFuture<YandexStationCommandAck> sendTtsCommand(String text) {
         logger.debug("sendTtsCommand");
         FormUpdate formUpdate = new FormUpdate();
         FormUpdateSlot slot = new FormUpdateSlot(text);
@@ -399,43 +536,38 @@ public class YandexStationHandler extends BaseThingHandler {
         ServerActionEvent event = new ServerActionEvent("update_form", payload);
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_SERVER_ACTION, event);
 
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send stop listening.
+     *
+     * @return the station acknowledgement
      */
-    public void sendStopListening() {
+    public CompletableFuture<YandexStationCommandAck> sendStopListening() {
         logger.debug("sendStopListening");
         ServerActionEvent event = new ServerActionEvent("on_suggest", null);
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_SERVER_ACTION, event);
 
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send set volume command.
      *
      * @param volume the volume
+     * @return the station acknowledgement
      */
-    public void sendSetVolumeCommand(Integer volume) {
+    public CompletableFuture<YandexStationCommandAck> sendSetVolumeCommand(Integer volume) {
         logger.debug("sendSetVolumeCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_SET_VOLUME, volume);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return commandCoalescer.submit(sendCommand);
     }
 
-    private void sendTrackPositionCommand(Integer position) {
+    private CompletableFuture<YandexStationCommandAck> sendTrackPositionCommand(Integer position) {
         logger.debug("sendTrackPositionCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_REWIND, position);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return commandCoalescer.submit(sendCommand);
     }
 
     /**
@@ -455,7 +587,7 @@ public class YandexStationHandler extends BaseThingHandler {
      * Volume up.
      */
     public void volumeUp() {
-        Integer volume = stationState.getVolume();
+        int volume = stationState.getVolume();
         if (volume < 10) {
             volume++;
             sendSetVolumeCommand(volume);
@@ -466,7 +598,7 @@ public class YandexStationHandler extends BaseThingHandler {
      * Volume down.
      */
     public void volumeDown() {
-        Integer volume = stationState.getVolume();
+        int volume = stationState.getVolume();
         if (volume > 0) {
             volume--;
             sendSetVolumeCommand(volume);
@@ -474,14 +606,14 @@ public class YandexStationHandler extends BaseThingHandler {
     }
 
     private void fastForward() {
-        Double position = stationState.playerState.getProgress() + 15.0;
-        if (stationState.playerState.getDuration() > position) {
-            sendTrackPositionCommand(position.intValue());
+        double position = stationState.progress + 15.0;
+        if (stationState.duration > position) {
+            sendTrackPositionCommand((int) position);
         }
     }
 
     private void fastRewind() {
-        double position = stationState.playerState.getProgress() - 15.0;
+        double position = stationState.progress - 15.0;
         if (position > 0) {
             sendTrackPositionCommand((int) position);
         }
@@ -489,136 +621,136 @@ public class YandexStationHandler extends BaseThingHandler {
 
     /**
      * Send play next command.
+     *
+     * @return the station acknowledgement
      */
-    public void sendPlayNextCommand() {
+    public CompletableFuture<YandexStationCommandAck> sendPlayNextCommand() {
         logger.debug("sendPlayNextCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_NEXT);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send play prev command.
+     *
+     * @return the station acknowledgement
      */
-    public void sendPlayPrevCommand() {
+    public CompletableFuture<YandexStationCommandAck> sendPlayPrevCommand() {
         logger.debug("sendPlayPrevCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_PREV);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send play command.
+     *
+     * @return the station acknowledgement
      */
-    public void sendPlayCommand() {
+    public CompletableFuture<YandexStationCommandAck> sendPlayCommand() {
         logger.debug("sendPlayCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_PLAY);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
     /**
      * Send stop command.
+     *
+     * @return the station acknowledgement
      */
-    public void sendStopCommand() {
+    public CompletableFuture<YandexStationCommandAck> sendStopCommand() {
         logger.debug("sendStopCommand");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_STOP);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(config.device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(config.device_token, sendCommand);
     }
 
-    private void ping(String device_token) {
+    private CompletableFuture<YandexStationCommandAck> ping(String device_token) {
         logger.debug("ping");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_PING);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
+        return sendPacket(device_token, sendCommand);
     }
 
-    private void requestSoftwareVersion(String device_token) {
+    private CompletableFuture<YandexStationCommandAck> requestSoftwareVersion(String device_token) {
         logger.debug("requestSoftwareVersion");
         YandexStationCommand sendCommand = new YandexStationCommand(CMD_SW_VERSION);
-        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(device_token, sendCommand);
-        logger.debug("Send packet: {}", yandexPacket);
-        yandexStationWebsocket.sendMessage(yandexPacket.toString());
-    }
-
-    private void processReceivedData(YandexStationResponse response) {
-        if (response.getSoftwareVersion() != null) {
-            updateState(CHANNEL_STATE_SOFTWARE.getName(), new StringType(response.getSoftwareVersion()));
-            updateProperty("Software Version:", response.getSoftwareVersion());
+        return sendPacket(device_token, sendCommand);
+    }
+
+    private CompletableFuture<YandexStationCommandAck> sendPacket(String deviceToken, YandexStationCommand command) {
+        YandexStationSendPacket yandexPacket = new YandexStationSendPacket(deviceToken, command);
+        CompletableFuture<YandexStationCommandAck> ack = requestTracker.register(yandexPacket);
+        YandexStationCommandTypes type = command.getType();
+        // ping is only meaningful on a live connection, other commands are replayed after reconnect
+        // while the station acknowledgement is still awaited
+        yandexStationWebsocket.sendMessage(type != null ? type.getCommand() : null, () -> {
+            yandexPacket.setConversationToken(Objects.requireNonNull(config).device_token);
+            requestTracker.markSent(yandexPacket.getId());
+            logger.debug("Send packet: {}", yandexPacket);
+            return yandexPacket.toString();
+        }, type != CMD_PING, TimeUnit.SECONDS.toMillis(REQUEST_TIMEOUT),
+                e -> requestTracker.fail(yandexPacket.getId(), e));
+        return ack;
+    }
+
+    private void processReceivedData(YandexStationFrame frame) {
+        if (frame.has(YandexStationFrame.REQUEST_ID)) {
+            requestTracker.complete(frame.requestId, frame.has(YandexStationFrame.STATUS) ? frame.status : "",
+                    frame.has(YandexStationFrame.PROCESSING_TIME) ? frame.processingTime : -1);
         }
-        if (response.getState() != null) {
-            stationState = response.getState();
-            if (stationState.aliceState != null) {
-                updateState(CHANNEL_STATE_ALICE.getName(), new StringType(stationState.aliceState.toString()));
-            }
-            if (stationState.playing != null) {
-                updateState(CHANNEL_STATE_PLAYING.getName(), new StringType(stationState.playing ? "PLAY" : "PAUSE"));
+        if (frame.has(YandexStationFrame.SOFTWARE_VERSION)) {
+            updateState(CHANNEL_STATE_SOFTWARE.getName(), new StringType(frame.softwareVersion));
+            updateProperty("Software Version:", frame.softwareVersion);
+        }
+        if (frame.has(YandexStationFrame.STATE)) {
+            if (frame.has(YandexStationFrame.ALICE_STATE)) {
+                updateState(CHANNEL_STATE_ALICE.getName(), new StringType(frame.aliceState));
             }
-            if (stationState.getVolume() != null) {
-                updateState(CHANNEL_VOLUME.getName(), new PercentType(stationState.getVolume()));
+            if (frame.has(YandexStationFrame.PLAYING)) {
+                updateState(CHANNEL_STATE_PLAYING.getName(), new StringType(frame.playing ? "PLAY" : "PAUSE"));
             }
-            if (stationState.playing != null) {
-                updateState(CHANNEL_STATE_PLAYING.getName(), OnOffType.from(stationState.playing));
+            if (frame.has(YandexStationFrame.VOLUME)) {
+                updateState(CHANNEL_VOLUME.getName(), new PercentType(frame.getVolume()));
             }
-            if (stationState.playerState != null) {
-                processPlayerState(stationState.playerState);
+            if (frame.has(YandexStationFrame.PLAYER_STATE)) {
+                processPlayerState(frame);
             }
         }
     }
 
-    private void processPlayerState(YandexStationPlayerState playerState) {
-        if (playerState.getDuration() != null) {
-            updateState(CHANNEL_STATE_TRACK_DURATION.getName(), new DecimalType(playerState.getDuration()));
+    private void processPlayerState(YandexStationFrame frame) {
+        if (frame.has(YandexStationFrame.DURATION)) {
+            updateState(CHANNEL_STATE_TRACK_DURATION.getName(), new DecimalType(frame.duration));
         }
-        if (playerState.getHasProgressBar() != null && playerState.getHasProgressBar()
-                && playerState.getProgress() != null) {
-            updateState(CHANNEL_STATE_TRACK_POSITION.getName(), new DecimalType(playerState.getProgress()));
+        if (frame.has(YandexStationFrame.HAS_PROGRESS_BAR) && frame.hasProgressBar
+                && frame.has(YandexStationFrame.PROGRESS) && positionCoalescer.shouldPublish(frame.progress,
+                        frame.trackId, frame.playing, System.currentTimeMillis())) {
+            updateState(CHANNEL_STATE_TRACK_POSITION.getName(), new DecimalType(frame.progress));
         }
-        if (playerState.getPlaylistId() != null) {
-            updateState(CHANNEL_STATE_TRACK_PLAYLIST_ID.getName(), new StringType(playerState.getPlaylistId()));
+        if (frame.has(YandexStationFrame.PLAYLIST_ID)) {
+            updateState(CHANNEL_STATE_TRACK_PLAYLIST_ID.getName(), new StringType(frame.playlistId));
         }
-        if (playerState.getId() != null) {
-            updateState(CHANNEL_STATE_TRACK_ID.getName(), new StringType(playerState.getId()));
+        if (frame.has(YandexStationFrame.TRACK_ID)) {
+            updateState(CHANNEL_STATE_TRACK_ID.getName(), new StringType(frame.trackId));
         }
-        if (playerState.getPlaylistType() != null) {
-            updateState(CHANNEL_STATE_PLAYLIST_TYPE.getName(), new StringType(playerState.getPlaylistType()));
+        if (frame.has(YandexStationFrame.PLAYLIST_TYPE)) {
+            updateState(CHANNEL_STATE_PLAYLIST_TYPE.getName(), new StringType(frame.playlistType));
         }
-        if (playerState.getSubtitle() != null) {
-            updateState(CHANNEL_STATE_TRACK_SUBTITLE.getName(), new StringType(playerState.getSubtitle()));
+        if (frame.has(YandexStationFrame.SUBTITLE)) {
+            updateState(CHANNEL_STATE_TRACK_SUBTITLE.getName(), new StringType(frame.subtitle));
         }
-        if (playerState.getTitle() != null) {
-            updateState(CHANNEL_STATE_TRACK_TITLE.getName(), new StringType(playerState.getTitle()));
+        if (frame.has(YandexStationFrame.TITLE)) {
+            updateState(CHANNEL_STATE_TRACK_TITLE.getName(), new StringType(frame.title));
         }
-        if (playerState.getType() != null) {
-            updateState(CHANNEL_STATE_TRACK_TYPE.getName(), new StringType(playerState.getType()));
+        if (frame.has(YandexStationFrame.TRACK_TYPE)) {
+            updateState(CHANNEL_STATE_TRACK_TYPE.getName(), new StringType(frame.trackType));
         }
-        if (playerState.getExtra() != null) {
-            if (playerState.getExtra().coverURI != null) {
-                updateState(CHANNEL_STATE_TRACK_COVER_URI.getName(),
-                        new StringType("https://" + playerState.getExtra().coverURI));
-            }
+        if (frame.has(YandexStationFrame.COVER_URI)) {
+            updateState(CHANNEL_STATE_TRACK_COVER_URI.getName(), new StringType("https://" + frame.coverURI));
         }
-        if (playerState.getEntityInfo() != null) {
-            if (playerState.getEntityInfo().next != null && !playerState.getEntityInfo().next.isEmpty()
-                    && playerState.getEntityInfo().next.containsKey("id")) {
-                String sId = playerState.getEntityInfo().next.get("id");
-                if (sId != null && !sId.isEmpty()) {
-                    updateState(CHANNEL_STATE_TRACK_NEXT_ID.getName(), new StringType(sId));
-                }
-            }
-            if (playerState.getEntityInfo().prev != null && !playerState.getEntityInfo().prev.isEmpty()
-                    && playerState.getEntityInfo().prev.containsKey("id")) {
-                String sId = playerState.getEntityInfo().prev.get("id");
-                if ((sId != null && !sId.isEmpty()) && (!sId.isEmpty())) {
-                    updateState(CHANNEL_STATE_TRACK_PREV_ID.getName(), new StringType(sId));
-                }
-            }
+        if (frame.has(YandexStationFrame.NEXT_ID)) {
+            updateState(CHANNEL_STATE_TRACK_NEXT_ID.getName(), new StringType(frame.nextId));
+        }
+        if (frame.has(YandexStationFrame.PREV_ID)) {
+            updateState(CHANNEL_STATE_TRACK_PREV_ID.getName(), new StringType(frame.prevId));
         }
     }
 
@@ -632,43 +764,80 @@ public class YandexStationHandler extends BaseThingHandler {
         super.updateProperty(name, value);
     }
 
-    private void receiveDeviceToken() {
+    private void tokenRenewed(String token) {
+        YandexStationConfiguration config = this.config;
+        if (config != null) {
+            config.device_token = token;
+            Configuration configuration = thing.getConfiguration();
+            configuration.put("device_token", token);
+            updateConfiguration(configuration);
+        }
+    }
+
+    /**
+     * Looks up device and its token, the cached token is used unless refresh is forced.
+     *
+     * @param forceRefresh true to download a new token, e.g. when the station rejected the cached one
+     * @return the future completed when the configuration is updated, it fails if the device doesn't support
+     *         local api
+     */
+    private CompletableFuture<Void> receiveDeviceToken(boolean forceRefresh) {
         // get device token from https://quasar.yandex.net/glagol/token
-        try {
-            ApiDeviceResponse device = api.findDevice(config.device_id, yandexStationBridge.config.yandex_token);
+        YandexStationBridge bridge = Objects.requireNonNull(yandexStationBridge);
+        YandexStationConfiguration config = Objects.requireNonNull(this.config);
+        YandexStationTokenManager tokenManager = bridge.getTokenManager();
+        return bridge.getDeviceRegistry().getDeviceAsync(config.device_id).thenCompose(device -> {
+            if (device == null) {
+                return CompletableFuture.<Void> failedFuture(
+                        new ApiException(String.format("Device %s not found", config.device_id)));
+            }
             logger.debug("Yandex device: {}", device);
 
-            String token = api.getDeviceToken(yandexStationBridge.config.yandex_token, config.device_id,
-                    device.platform);
+            if (!tokenRegistered) {
+                tokenManager.register(config.device_id, device.platform, config.device_token, this::tokenRenewed);
+                tokenRegistered = true;
+            }
+            CompletableFuture<String> token = forceRefresh
+                    ? tokenManager.refreshAsync(config.device_id, device.platform)
+                    : tokenManager.getTokenAsync(config.device_id, device.platform);
+            return token.thenAccept(deviceToken -> deviceTokenReceived(device, deviceToken));
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ApiException) {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, cause.getMessage());
+                return null;
+            }
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        });
+    }
 
-            config.platform = device.platform;
-            config.device_token = token;
+    private void deviceTokenReceived(ApiDeviceResponse device, String token) {
+        YandexStationConfiguration config = Objects.requireNonNull(this.config);
+        config.platform = device.platform;
+        config.device_token = token;
 
-            logger.info("Yandex station IP's: {}", device.networkInfo.ipAdresses);
+        logger.info("Yandex station IP's: {}", device.networkInfo.ipAdresses);
 
-            // config.hostname = device.networkInfo.ipAdresses.get(0);
-            config.hostname = Objects.requireNonNull(device.networkInfo.ipAdresses.stream()
-                    .filter(ip -> !ip.startsWith("169.254") && !ip.contains(":")).findFirst().orElse(null));
-            config.port = String.valueOf(device.networkInfo.port);
+        // config.hostname = device.networkInfo.ipAdresses.get(0);
+        config.hostname = Objects.requireNonNull(device.networkInfo.ipAdresses.stream()
+                .filter(ip -> !ip.startsWith("169.254") && !ip.contains(":")).findFirst().orElse(null));
+        config.port = String.valueOf(device.networkInfo.port);
 
-            Configuration configuration = thing.getConfiguration();
-            configuration.put("device_token", token);
-            configuration.put("platform", device.platform);
-            configuration.put("hostname", config.hostname);
-            configuration.put("port", config.port);
-            configuration.put("server_certificate", device.glagol.security.serverCertificate);
-            configuration.put("server_private_key", device.glagol.security.serverPrivateKey);
-            updateConfiguration(configuration);
+        Configuration configuration = thing.getConfiguration();
+        configuration.put("device_token", token);
+        configuration.put("platform", device.platform);
+        configuration.put("hostname", config.hostname);
+        configuration.put("port", config.port);
+        configuration.put("server_certificate", device.glagol.security.serverCertificate);
+        configuration.put("server_private_key", device.glagol.security.serverPrivateKey);
+        updateConfiguration(configuration);
 
-            setThingProperties(device);
+        setThingProperties(device);
 
-            if (Boolean.FALSE.equals(YandexStationTypes.isLocalApi(device.platform))) {
-                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
-                        "Device doesn't support Local API");
-                throw new RuntimeException(String.format("Device %s not supported local api", device.name));
-            }
-        } catch (ApiException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, e.getMessage());
+        if (Boolean.FALSE.equals(YandexStationTypes.isLocalApi(device.platform))) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    "Device doesn't support Local API");
+            throw new RuntimeException(String.format("Device %s not supported local api", device.name));
         }
     }
 
@@ -691,7 +860,7 @@ public class YandexStationHandler extends BaseThingHandler {
      *
      * @return the station state
      */
-    public YandexStationState getStationState() {
+    public YandexStationFrame getStationState() {
         return stationState;
     }
 
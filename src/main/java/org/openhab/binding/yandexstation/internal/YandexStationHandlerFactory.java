@@ -50,6 +50,7 @@ public class YandexStationHandlerFactory extends BaseThingHandlerFactory {
     private static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = Set.of(THING_TYPE_STATION, THING_TYPE_BRIDGE,
             THING_TYPE_SCENARIO);
     private final YandexApiFactory apiFactory;
+    private final YandexStationWebSocketFactory webSocketFactory;
 
     private static final Map<ThingUID, @NonNull YandexStationHandler> handlerMap = new HashMap<>();
 
@@ -62,10 +63,13 @@ public class YandexStationHandlerFactory extends BaseThingHandlerFactory {
      * Instantiates a new Yandex station handler factory.
      *
      * @param apiFactory the api factory
+     * @param webSocketFactory the websocket factory
      */
     @Activate
-    public YandexStationHandlerFactory(@Reference YandexApiFactory apiFactory) {
+    public YandexStationHandlerFactory(@Reference YandexApiFactory apiFactory,
+            @Reference YandexStationWebSocketFactory webSocketFactory) {
         this.apiFactory = apiFactory;
+        this.webSocketFactory = webSocketFactory;
     }
 
     @Override
@@ -74,7 +78,7 @@ public class YandexStationHandlerFactory extends BaseThingHandlerFactory {
 
         if (THING_TYPE_STATION.equals(thingTypeUID)) {
             try {
-                return new YandexStationHandler(thing, apiFactory);
+                return new YandexStationHandler(thing, apiFactory, webSocketFactory);
             } catch (ApiException e) {
                 throw new RuntimeException(e);
             }
@@ -86,7 +90,7 @@ public class YandexStationHandlerFactory extends BaseThingHandlerFactory {
             }
         } else if (THING_TYPE_SCENARIO.equals(thingTypeUID)) {
             try {
-                return new YandexScenariosHandler(thing, apiFactory);
+                return new YandexScenariosHandler(thing, apiFactory, webSocketFactory);
             } catch (ApiException e) {
                 throw new RuntimeException(e);
             }
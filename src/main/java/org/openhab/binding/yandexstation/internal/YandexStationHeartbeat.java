@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexStationHeartbeat} checks the websocket is alive. Every interval it sends a ping and waits for
+ * the reply, the round trip time is recorded. After the configured count of missed replies in a row
+ * the link is declared dead.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationHeartbeat {
+    private final Logger logger = LoggerFactory.getLogger(YandexStationHeartbeat.class);
+    private final ScheduledExecutorService scheduler;
+    private final int intervalSec;
+    private final int maxMissed;
+    private final Supplier<CompletableFuture<?>> pinger;
+    private final LongConsumer onRtt;
+    private final Runnable onDead;
+
+    private @Nullable ScheduledFuture<?> job;
+    private int missed;
+    private volatile long lastRtt = -1;
+
+    private final LongAdder deadLinks = new LongAdder();
+    private final YandexStationLatencyHistogram rtt = new YandexStationLatencyHistogram();
+
+    /**
+     * Instantiates a new heartbeat.
+     *
+     * @param scheduler the scheduler
+     * @param intervalSec the ping interval in sec, 0 disables heartbeat
+     * @param maxMissed the count of missed replies in a row after which the link is dead
+     * @param pinger sends the ping, the future is completed by the reply
+     * @param onRtt called with round trip time in ms of every reply
+     * @param onDead called when the link is dead
+     */
+    public YandexStationHeartbeat(ScheduledExecutorService scheduler, int intervalSec, int maxMissed,
+            Supplier<CompletableFuture<?>> pinger, LongConsumer onRtt, Runnable onDead) {
+        this.scheduler = scheduler;
+        this.intervalSec = Math.max(0, intervalSec);
+        this.maxMissed = Math.max(1, maxMissed);
+        this.pinger = pinger;
+        this.onRtt = onRtt;
+        this.onDead = onDead;
+    }
+
+    /**
+     * Start sending pings, e.g. when the websocket is connected.
+     */
+    public synchronized void start() {
+        stop();
+        missed = 0;
+        if (intervalSec > 0) {
+            job = scheduler.scheduleWithFixedDelay(this::ping, intervalSec, intervalSec, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop sending pings, e.g. when the websocket is closed.
+     */
+    public synchronized void stop() {
+        ScheduledFuture<?> current = job;
+        if (current != null) {
+            current.cancel(false);
+            job = null;
+        }
+    }
+
+    private void ping() {
+        long started = System.nanoTime();
+        CompletableFuture<?> reply;
+        try {
+            reply = pinger.get();
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+        reply.orTimeout(intervalSec, TimeUnit.SECONDS).whenComplete((result, e) -> {
+            if (e == null) {
+                replied(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } else {
+                missed(e);
+            }
+        });
+    }
+
+    private void replied(long millis) {
+        synchronized (this) {
+            missed = 0;
+        }
+        lastRtt = millis;
+        rtt.record(millis);
+        onRtt.accept(millis);
+    }
+
+    private void missed(Throwable cause) {
+        synchronized (this) {
+            if (job == null || ++missed < maxMissed) {
+                logger.debug("Heartbeat reply missed ({}): {}", missed, cause.getMessage());
+                return;
+            }
+            missed = 0;
+        }
+        logger.debug("Heartbeat: {} replies missed, link is dead", maxMissed);
+        deadLinks.increment();
+        onDead.run();
+    }
+
+    /**
+     * Gets last round trip time.
+     *
+     * @return the round trip time in ms, -1 if there was no reply yet
+     */
+    public long getLastRtt() {
+        return lastRtt;
+    }
+
+    /**
+     * Gets round trip time histogram.
+     *
+     * @return the histogram
+     */
+    public YandexStationLatencyHistogram getRtt() {
+        return rtt;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("rtt %s, dead links=%d", rtt, deadLinks.sum());
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexStationLatencyHistogram} is a lock-free fixed bucket latency histogram in ms.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationLatencyHistogram {
+    private static final long[] BOUNDS = { 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record value.
+     *
+     * @param millis the value in ms
+     */
+    public void record(long millis) {
+        long value = Math.max(0, millis);
+        int i = 0;
+        while (i < BOUNDS.length && value > BOUNDS[i]) {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets count.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets average.
+     *
+     * @return the average in ms
+     */
+    public long getAverage() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    /**
+     * Gets max.
+     *
+     * @return the max in ms
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the upper bound of the bucket containing the given percentile.
+     *
+     * @param percentile the percentile (0 - 100)
+     * @return the value in ms
+     */
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BOUNDS[i];
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d avg=%dms p50=%dms p95=%dms max=%dms", getCount(), getAverage(),
+                getPercentile(50), getPercentile(95), getMax());
+    }
+}
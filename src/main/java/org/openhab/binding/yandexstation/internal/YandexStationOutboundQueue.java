@@ -0,0 +1,338 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.websocket.api.BatchMode;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexStationOutboundQueue} is a bounded outbound message queue of a websocket.
+ * Messages are written asynchronously in batches, callers are never blocked by a slow station.
+ * Messages offered while the websocket is not connected are kept and written once it is connected again,
+ * unless their deadline has passed meanwhile.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationOutboundQueue {
+    /**
+     * The queue overflow policy.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest queued message.
+         */
+        DROP_OLDEST,
+        /**
+         * Replace the queued message of the same type, reject if there is none.
+         */
+        COALESCE,
+        /**
+         * Reject the new message.
+         */
+        REJECT;
+
+        /**
+         * Parse policy from configuration value.
+         *
+         * @param value the value
+         * @return the policy, DROP_OLDEST if value is unknown
+         */
+        public static OverflowPolicy from(String value) {
+            for (OverflowPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            return DROP_OLDEST;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(YandexStationOutboundQueue.class);
+    private final Deque<OutboundMessage> queue = new ArrayDeque<>();
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private @Nullable Session session;
+    private int pendingWrites;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Instantiates a new outbound queue.
+     *
+     * @param capacity the max count of queued messages
+     * @param policy the overflow policy
+     */
+    public YandexStationOutboundQueue(int capacity, OverflowPolicy policy) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+    }
+
+    /**
+     * Offer message to the queue.
+     *
+     * @param type the message type used for coalescing, null if message can't be coalesced
+     * @param message the message supplier, called right before the message is written
+     * @param replay true if message should wait for connection, false if it is dropped when not connected
+     * @param timeout the time in ms the message may wait in the queue, 0 to wait without limit
+     * @param onFailure called when message is dropped, rejected, expired or failed to be written
+     * @return true if message was accepted
+     */
+    public boolean offer(@Nullable String type, Supplier<String> message, boolean replay, long timeout,
+            Consumer<Throwable> onFailure) {
+        long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+        OutboundMessage outbound = new OutboundMessage(type, message, deadline, onFailure);
+        @Nullable
+        OutboundMessage evicted = null;
+        List<OutboundMessage> expiredMessages;
+        synchronized (this) {
+            expiredMessages = removeExpired();
+            if (!replay && !isConnected()) {
+                dropped.increment();
+                evicted = outbound;
+            } else if (queue.size() < capacity) {
+                queue.addLast(outbound);
+            } else {
+                switch (policy) {
+                    case DROP_OLDEST:
+                        evicted = queue.pollFirst();
+                        dropped.increment();
+                        queue.addLast(outbound);
+                        break;
+                    case COALESCE:
+                        evicted = replaceSameType(outbound);
+                        if (evicted == null) {
+                            rejected.increment();
+                            evicted = outbound;
+                        } else {
+                            coalesced.increment();
+                        }
+                        break;
+                    case REJECT:
+                        rejected.increment();
+                        evicted = outbound;
+                        break;
+                }
+            }
+        }
+        expire(expiredMessages);
+        if (evicted != null) {
+            evicted.onFailure.accept(new RejectedExecutionException("Outbound queue is full or not connected"));
+        }
+        drain();
+        return evicted != outbound;
+    }
+
+    private List<OutboundMessage> removeExpired() {
+        List<OutboundMessage> expiredMessages = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<OutboundMessage> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            OutboundMessage queued = iterator.next();
+            if (queued.isExpired(now)) {
+                iterator.remove();
+                expiredMessages.add(queued);
+            }
+        }
+        return expiredMessages;
+    }
+
+    private void expire(List<OutboundMessage> expiredMessages) {
+        if (!expiredMessages.isEmpty()) {
+            expired.add(expiredMessages.size());
+            TimeoutException cause = new TimeoutException("Message expired in outbound queue");
+            expiredMessages.forEach(message -> message.onFailure.accept(cause));
+        }
+    }
+
+    private @Nullable OutboundMessage replaceSameType(OutboundMessage outbound) {
+        if (outbound.type == null) {
+            return null;
+        }
+        Iterator<OutboundMessage> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            OutboundMessage queued = iterator.next();
+            if (outbound.type.equals(queued.type)) {
+                iterator.remove();
+                queue.addLast(outbound);
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Attach connected session and write queued messages.
+     *
+     * @param session the session
+     */
+    public void attach(Session session) {
+        synchronized (this) {
+            this.session = session;
+            pendingWrites = 0;
+        }
+        drain();
+    }
+
+    /**
+     * Detach closed session, queued messages are kept for the next session.
+     */
+    public synchronized void detach() {
+        session = null;
+        pendingWrites = 0;
+    }
+
+    /**
+     * Drop all queued messages.
+     */
+    public void clear() {
+        List<OutboundMessage> cleared;
+        synchronized (this) {
+            cleared = new ArrayList<>(queue);
+            queue.clear();
+        }
+        IOException cause = new IOException("Outbound queue cleared");
+        cleared.forEach(message -> message.onFailure.accept(cause));
+    }
+
+    private synchronized boolean isConnected() {
+        Session current = session;
+        return current != null && current.isOpen();
+    }
+
+    private void drain() {
+        Session current;
+        List<OutboundMessage> batch;
+        List<OutboundMessage> expiredMessages;
+        synchronized (this) {
+            current = session;
+            if (pendingWrites > 0 || queue.isEmpty() || current == null || !current.isOpen()) {
+                return;
+            }
+            // the caller has already got a timeout for these messages, they must not reach the station
+            expiredMessages = removeExpired();
+            batch = new ArrayList<>(queue);
+            queue.clear();
+            pendingWrites = batch.size();
+        }
+        expire(expiredMessages);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        RemoteEndpoint remote = current.getRemote();
+        remote.setBatchMode(BatchMode.ON);
+        for (OutboundMessage message : batch) {
+            try {
+                remote.sendString(message.message.get(), new WriteCallback() {
+                    @Override
+                    public void writeSuccess() {
+                        sent.increment();
+                        written(current);
+                    }
+
+                    @Override
+                    public void writeFailed(@Nullable Throwable cause) {
+                        failed.increment();
+                        message.onFailure.accept(cause != null ? cause : new IOException("Write failed"));
+                        written(current);
+                    }
+                });
+            } catch (RuntimeException e) {
+                failed.increment();
+                message.onFailure.accept(e);
+                written(current);
+            }
+        }
+        try {
+            remote.flush();
+        } catch (IOException e) {
+            logger.debug("Can't flush websocket: {}", e.getMessage());
+        }
+    }
+
+    private void written(Session writtenSession) {
+        synchronized (this) {
+            if (session != writtenSession || --pendingWrites > 0) {
+                return;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Gets count of queued messages.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("queued=%d sent=%d dropped=%d rejected=%d coalesced=%d expired=%d failed=%d", size(),
+                sent.sum(), dropped.sum(), rejected.sum(), coalesced.sum(), expired.sum(), failed.sum());
+    }
+
+    private static class OutboundMessage {
+        final @Nullable String type;
+        final Supplier<String> message;
+        /**
+         * The deadline in ns, 0 if message does not expire.
+         */
+        final long deadline;
+        final Consumer<Throwable> onFailure;
+
+        OutboundMessage(@Nullable String type, Supplier<String> message, long deadline,
+                Consumer<Throwable> onFailure) {
+            this.type = type;
+            this.message = message;
+            this.deadline = deadline;
+            this.onFailure = onFailure;
+        }
+
+        boolean isExpired(long now) {
+            return deadline != 0 && now - deadline >= 0;
+        }
+    }
+}
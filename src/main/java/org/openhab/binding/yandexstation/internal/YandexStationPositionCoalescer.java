@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexStationPositionCoalescer} throttles track position updates.
+ * Position is published not more often than the configured interval and only if it moved by the minimal delta,
+ * but always immediately on seek, play/pause and track change.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationPositionCoalescer {
+    /**
+     * Position jump (in sec) against the expected playback position that is treated as seek.
+     */
+    private static final double SEEK_THRESHOLD = 2.0;
+
+    private final long intervalMillis;
+    private final double minDelta;
+
+    private boolean published;
+    private long lastTime;
+    private double lastPosition;
+    private boolean lastPlaying;
+    private String lastTrackId = "";
+
+    /**
+     * Instantiates a new position coalescer.
+     *
+     * @param intervalSec the minimal interval between published positions in sec
+     * @param minDelta the minimal position change in sec
+     */
+    public YandexStationPositionCoalescer(int intervalSec, int minDelta) {
+        this.intervalMillis = Math.max(0, intervalSec) * 1000L;
+        this.minDelta = Math.max(0, minDelta);
+    }
+
+    /**
+     * Decides whether position has to be published now.
+     *
+     * @param position the track position in sec
+     * @param trackId the track id
+     * @param playing the playing flag
+     * @param now the current time in ms
+     * @return true if position has to be published
+     */
+    public synchronized boolean shouldPublish(double position, String trackId, boolean playing, long now) {
+        boolean publish;
+        if (!published || !trackId.equals(lastTrackId) || playing != lastPlaying) {
+            publish = true;
+        } else {
+            double expected = lastPosition + (lastPlaying ? (now - lastTime) / 1000.0 : 0);
+            if (Math.abs(position - expected) > SEEK_THRESHOLD) {
+                publish = true;
+            } else {
+                publish = now - lastTime >= intervalMillis && Math.abs(position - lastPosition) >= minDelta;
+            }
+        }
+        if (publish) {
+            published = true;
+            lastTime = now;
+            lastPosition = position;
+            lastPlaying = playing;
+            lastTrackId = trackId;
+        }
+        return publish;
+    }
+
+    /**
+     * Forgets the last published position, so the next one is published immediately.
+     */
+    public synchronized void reset() {
+        published = false;
+    }
+}
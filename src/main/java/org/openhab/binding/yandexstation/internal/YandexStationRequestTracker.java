@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandAck;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationCommandTypes;
+import org.openhab.binding.yandexstation.internal.commands.YandexStationSendPacket;
+
+/**
+ * The {@link YandexStationRequestTracker} correlates packets sent to the station with its responses by packet id.
+ * It completes a future per packet, expires packets without response and records round trip and
+ * station processing time per command type.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationRequestTracker {
+    /**
+     * Time in sec to wait for station response.
+     */
+    public static final int REQUEST_TIMEOUT = 10;
+
+    private final Map<String, PendingRequest> inFlight = new ConcurrentHashMap<>();
+    private final Map<YandexStationCommandTypes, YandexStationLatencyHistogram> roundTrip = new EnumMap<>(
+            YandexStationCommandTypes.class);
+    private final Map<YandexStationCommandTypes, YandexStationLatencyHistogram> processing = new EnumMap<>(
+            YandexStationCommandTypes.class);
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Instantiates a new Yandex station request tracker.
+     */
+    public YandexStationRequestTracker() {
+        for (YandexStationCommandTypes type : YandexStationCommandTypes.values()) {
+            roundTrip.put(type, new YandexStationLatencyHistogram());
+            processing.put(type, new YandexStationLatencyHistogram());
+        }
+    }
+
+    /**
+     * Registers packet before it is sent.
+     *
+     * @param packet the packet
+     * @return the future completed with station acknowledgement
+     */
+    public CompletableFuture<YandexStationCommandAck> register(YandexStationSendPacket packet) {
+        String id = packet.getId();
+        PendingRequest request = new PendingRequest(packet.getCommand().getType());
+        inFlight.put(id, request);
+        request.future.orTimeout(REQUEST_TIMEOUT, TimeUnit.SECONDS).whenComplete((ack, e) -> {
+            inFlight.remove(id, request);
+            if (e instanceof TimeoutException
+                    || (e instanceof CompletionException && e.getCause() instanceof TimeoutException)) {
+                timeouts.increment();
+            }
+        });
+        return request.future;
+    }
+
+    /**
+     * Marks packet as written to the websocket, round trip time is measured from this moment.
+     *
+     * @param requestId the packet id
+     */
+    public void markSent(String requestId) {
+        PendingRequest request = inFlight.get(requestId);
+        if (request != null) {
+            request.sentNanos = System.nanoTime();
+            request.sent = true;
+        }
+    }
+
+    /**
+     * Fails packet, e.g. when it could not be written.
+     *
+     * @param requestId the packet id
+     * @param cause the cause
+     */
+    public void fail(String requestId, Throwable cause) {
+        PendingRequest request = inFlight.remove(requestId);
+        if (request != null) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Completes packet with station response.
+     *
+     * @param requestId the id of the answered packet
+     * @param status the status
+     * @param processingTime the station processing time in ms or -1
+     * @return true if the packet was in flight
+     */
+    public boolean complete(String requestId, String status, long processingTime) {
+        PendingRequest request = inFlight.remove(requestId);
+        if (request == null) {
+            return false;
+        }
+        long rtt = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - request.sentNanos);
+        if (request.type != null) {
+            roundTrip.get(request.type).record(rtt);
+            if (processingTime >= 0) {
+                processing.get(request.type).record(processingTime);
+            }
+        }
+        request.future.complete(new YandexStationCommandAck(requestId, status, rtt, processingTime));
+        return true;
+    }
+
+    /**
+     * Fails all packets written to the websocket, e.g. when the connection is closed.
+     * Packets waiting in the outbound queue are kept, they are sent after reconnect.
+     *
+     * @param cause the cause
+     */
+    public void failSent(Throwable cause) {
+        inFlight.forEach((id, request) -> {
+            if (request.sent && inFlight.remove(id, request)) {
+                request.future.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Fails all packets in flight, e.g. when the thing is disposed.
+     *
+     * @param cause the cause
+     */
+    public void failAll(Throwable cause) {
+        inFlight.keySet().forEach(id -> fail(id, cause));
+    }
+
+    /**
+     * Gets in flight count.
+     *
+     * @return the in flight count
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Gets timeouts count.
+     *
+     * @return the timeouts count
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Gets round trip histogram.
+     *
+     * @param type the command type
+     * @return the histogram
+     */
+    public YandexStationLatencyHistogram getRoundTrip(YandexStationCommandTypes type) {
+        return roundTrip.get(type);
+    }
+
+    /**
+     * Gets processing time histogram.
+     *
+     * @param type the command type
+     * @return the histogram
+     */
+    public YandexStationLatencyHistogram getProcessing(YandexStationCommandTypes type) {
+        return processing.get(type);
+    }
+
+    /**
+     * Gets statistics for command types with at least one response.
+     *
+     * @return the statistics
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new LinkedHashMap<>();
+        roundTrip.forEach((type, histogram) -> {
+            if (histogram.getCount() > 0) {
+                statistics.put(type.getCommand(), "rtt " + histogram + ", processing " + processing.get(type));
+            }
+        });
+        statistics.put("timeouts", String.valueOf(getTimeouts()));
+        return statistics;
+    }
+
+    private static class PendingRequest {
+        final @Nullable YandexStationCommandTypes type;
+        volatile long sentNanos = System.nanoTime();
+        volatile boolean sent;
+        final CompletableFuture<YandexStationCommandAck> future = new CompletableFuture<>();
+
+        PendingRequest(@Nullable YandexStationCommandTypes type) {
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexStationStartupPipeline} runs the startup steps (device lookup, token fetch)
+ * of the bridge stations concurrently, but not more than the configured count at a time, so station handlers
+ * don't block the openHAB thing initialization threads. It also measures the startup time of every station
+ * from initialization to the first connect and of the whole batch.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationStartupPipeline {
+    private final Logger logger = LoggerFactory.getLogger(YandexStationStartupPipeline.class);
+    private final Executor executor;
+    private final int parallelism;
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+
+    private final Map<String, Long> starting = new ConcurrentHashMap<>();
+    private final Map<String, Long> startupTimes = new ConcurrentHashMap<>();
+    private final YandexStationLatencyHistogram startupTime = new YandexStationLatencyHistogram();
+    private long batchStarted;
+
+    /**
+     * Instantiates a new startup pipeline.
+     *
+     * @param executor the executor
+     * @param parallelism the max count of steps running at a time
+     */
+    public YandexStationStartupPipeline(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Submit blocking startup step.
+     *
+     * @param <T> the result type
+     * @param step the step
+     * @return the future step result
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> step) {
+        return submitAsync(() -> CompletableFuture.completedFuture(step.get()));
+    }
+
+    /**
+     * Submit async startup step, its slot is held until the returned future is completed.
+     *
+     * @param <T> the result type
+     * @param step the step
+     * @return the future step result
+     */
+    public <T> CompletableFuture<T> submitAsync(Supplier<CompletableFuture<T>> step) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            CompletableFuture<T> stage;
+            try {
+                stage = step.get();
+            } catch (RuntimeException e) {
+                stage = CompletableFuture.failedFuture(e);
+            }
+            stage.whenComplete((value, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+                next();
+            });
+        };
+        synchronized (this) {
+            if (running >= parallelism) {
+                waiting.addLast(task);
+                return result;
+            }
+            running++;
+        }
+        executor.execute(task);
+        return result;
+    }
+
+    private void next() {
+        Runnable task;
+        synchronized (this) {
+            task = waiting.pollFirst();
+            if (task == null) {
+                running--;
+                return;
+            }
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Marks station startup begin.
+     *
+     * @param thingId the station thing id
+     */
+    public void started(String thingId) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (starting.isEmpty()) {
+                batchStarted = now;
+            }
+            starting.put(thingId, now);
+        }
+    }
+
+    /**
+     * Marks station startup end, when it is connected the first time.
+     *
+     * @param thingId the station thing id
+     */
+    public void connected(String thingId) {
+        long now = System.nanoTime();
+        Long begin = starting.remove(thingId);
+        if (begin == null) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(now - begin);
+        startupTimes.put(thingId, millis);
+        startupTime.record(millis);
+        logger.debug("Station {} started in {} ms", thingId, millis);
+        synchronized (this) {
+            if (starting.isEmpty()) {
+                logger.info("All stations started in {} ms", TimeUnit.NANOSECONDS.toMillis(now - batchStarted));
+            }
+        }
+    }
+
+    /**
+     * Forget station startup, e.g. when it is disposed before it was connected.
+     *
+     * @param thingId the station thing id
+     */
+    public void cancelled(String thingId) {
+        starting.remove(thingId);
+    }
+
+    /**
+     * Gets startup time histogram.
+     *
+     * @return the histogram
+     */
+    public YandexStationLatencyHistogram getStartupTime() {
+        return startupTime;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new LinkedHashMap<>();
+        startupTimes.forEach((thingId, millis) -> statistics.put(thingId, millis + "ms"));
+        statistics.put("overall", startupTime.toString());
+        return statistics;
+    }
+}
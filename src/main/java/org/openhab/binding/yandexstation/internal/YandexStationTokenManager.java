@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
+import org.openhab.binding.yandexstation.internal.yandexapi.YandexApi;
+import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * The {@link YandexStationTokenManager} caches Glagol conversation tokens of the bridge devices.
+ * Token expiry is read from the token (JWT exp claim) or assumed from the default lifetime.
+ * Tokens of registered devices are renewed in the background before they expire, so a reconnect
+ * normally doesn't need a cloud request.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationTokenManager {
+    /**
+     * Assumed token lifetime in ms if the token has no expiry.
+     */
+    private static final long DEFAULT_LIFETIME = TimeUnit.HOURS.toMillis(1);
+    /**
+     * Part of the token lifetime after which it is renewed.
+     */
+    private static final double RENEW_AT = 0.8;
+    /**
+     * Delay in ms before a failed renewal is retried.
+     */
+    private static final long RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(YandexStationTokenManager.class);
+    private final YandexApiImpl api;
+    private final Supplier<String> yandexToken;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, TokenEntry> tokens = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+
+    /**
+     * Instantiates a new token manager.
+     *
+     * @param api the api
+     * @param yandexToken supplies the current yandex token
+     * @param scheduler the scheduler for background renewal
+     */
+    public YandexStationTokenManager(YandexApiImpl api, Supplier<String> yandexToken,
+            ScheduledExecutorService scheduler) {
+        this.api = api;
+        this.yandexToken = yandexToken;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Register device, its token is renewed in the background until it is unregistered.
+     *
+     * @param deviceId the device id
+     * @param platform the device platform
+     * @param storedToken the token stored in thing configuration, may be empty
+     * @param listener called with the renewed token
+     */
+    public void register(String deviceId, String platform, String storedToken, Consumer<String> listener) {
+        TokenEntry entry = new TokenEntry(platform, listener);
+        TokenEntry previous = tokens.put(deviceId, entry);
+        if (previous != null) {
+            previous.cancelRenewal();
+        }
+        if (!storedToken.isEmpty()) {
+            store(deviceId, entry, storedToken);
+        }
+    }
+
+    /**
+     * Unregister device, stops background renewal.
+     *
+     * @param deviceId the device id
+     */
+    public void unregister(String deviceId) {
+        TokenEntry entry = tokens.remove(deviceId);
+        if (entry != null) {
+            entry.cancelRenewal();
+        }
+    }
+
+    /**
+     * Gets token, the cached one if it is not expired.
+     *
+     * @param deviceId the device id
+     * @param platform the device platform
+     * @return the token
+     * @throws ApiException the api exception
+     */
+    public String getToken(String deviceId, String platform) throws ApiException {
+        return YandexApi.await(getTokenAsync(deviceId, platform));
+    }
+
+    /**
+     * Gets token asynchronously, the cached one if it is not expired.
+     *
+     * @param deviceId the device id
+     * @param platform the device platform
+     * @return the future token
+     */
+    public CompletableFuture<String> getTokenAsync(String deviceId, String platform) {
+        TokenEntry entry = tokens.get(deviceId);
+        if (entry != null) {
+            String token = entry.token;
+            if (!token.isEmpty() && System.currentTimeMillis() < entry.expiresAt) {
+                hits.increment();
+                return CompletableFuture.completedFuture(token);
+            }
+        }
+        return refreshAsync(deviceId, platform);
+    }
+
+    /**
+     * Downloads a new token, e.g. when the station rejected the cached one.
+     *
+     * @param deviceId the device id
+     * @param platform the device platform
+     * @return the token
+     * @throws ApiException the api exception
+     */
+    public String refresh(String deviceId, String platform) throws ApiException {
+        return YandexApi.await(refreshAsync(deviceId, platform));
+    }
+
+    /**
+     * Downloads a new token asynchronously, joins a download in progress.
+     *
+     * @param deviceId the device id
+     * @param platform the device platform
+     * @return the future token
+     */
+    public CompletableFuture<String> refreshAsync(String deviceId, String platform) {
+        TokenEntry entry = tokens.computeIfAbsent(deviceId, id -> new TokenEntry(platform, null));
+        return fetch(deviceId, entry);
+    }
+
+    private CompletableFuture<String> fetch(String deviceId, TokenEntry entry) {
+        synchronized (entry) {
+            CompletableFuture<String> future = entry.fetching;
+            if (future != null) {
+                return future;
+            }
+            fetches.increment();
+            CompletableFuture<String> download = api.getDeviceTokenAsync(yandexToken.get(), deviceId, entry.platform)
+                    .thenApply(token -> {
+                        store(deviceId, entry, token);
+                        return token;
+                    });
+            entry.fetching = download;
+            download.whenComplete((token, e) -> {
+                synchronized (entry) {
+                    if (entry.fetching == download) {
+                        entry.fetching = null;
+                    }
+                }
+            });
+            return download;
+        }
+    }
+
+    private void store(String deviceId, TokenEntry entry, String token) {
+        long now = System.currentTimeMillis();
+        long expiry = readExpiry(token);
+        long expiresAt = expiry > 0 ? expiry : now + DEFAULT_LIFETIME;
+        entry.token = token;
+        entry.expiresAt = expiresAt;
+        if (entry.listener != null) {
+            scheduleRenewal(deviceId, entry, Math.max(0, (long) ((expiresAt - now) * RENEW_AT)));
+        }
+    }
+
+    private void scheduleRenewal(String deviceId, TokenEntry entry, long delay) {
+        synchronized (entry) {
+            entry.cancelRenewal();
+            entry.renewJob = scheduler.schedule(() -> renew(deviceId, entry), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void renew(String deviceId, TokenEntry entry) {
+        if (tokens.get(deviceId) != entry) {
+            return;
+        }
+        fetch(deviceId, entry).whenComplete((token, e) -> {
+            if (e != null) {
+                logger.debug("Can't renew device token of {}: {}", deviceId, e.getMessage());
+                scheduleRenewal(deviceId, entry, RETRY_DELAY);
+                return;
+            }
+            renewals.increment();
+            logger.debug("Device token of {} renewed", deviceId);
+            Consumer<String> listener = entry.listener;
+            if (listener != null) {
+                listener.accept(token);
+            }
+        });
+    }
+
+    /**
+     * Reads the expiry of a JWT token.
+     *
+     * @param token the token
+     * @return the expiry time in ms or 0 if it is unknown
+     */
+    static long readExpiry(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return 0;
+        }
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+            JsonElement json = JsonParser.parseString(payload);
+            if (json.isJsonObject()) {
+                JsonObject claims = json.getAsJsonObject();
+                if (claims.has("exp") && claims.get("exp").isJsonPrimitive()) {
+                    return claims.get("exp").getAsLong() * 1000;
+                }
+            }
+        } catch (IllegalArgumentException | JsonParseException | IllegalStateException e) {
+            // not a JWT token
+        }
+        return 0;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("tokens=%d hits=%d fetches=%d renewals=%d", tokens.size(), hits.sum(), fetches.sum(),
+                renewals.sum());
+    }
+
+    private static class TokenEntry {
+        final String platform;
+        final @Nullable Consumer<String> listener;
+        volatile String token = "";
+        volatile long expiresAt;
+        @Nullable
+        ScheduledFuture<?> renewJob;
+        @Nullable
+        CompletableFuture<String> fetching;
+
+        TokenEntry(String platform, @Nullable Consumer<String> listener) {
+            this.platform = platform;
+            this.listener = listener;
+        }
+
+        synchronized void cancelRenewal() {
+            ScheduledFuture<?> job = renewJob;
+            if (job != null) {
+                job.cancel(false);
+                renewJob = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Future;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexStationWebSocketFactory} owns the websocket client shared by all station and scenario things.
+ * All sessions use one thread pool, one selector and one SSL context. Stations use self-signed certificates,
+ * so the SSL context trusts all certificates.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@Component(service = YandexStationWebSocketFactory.class)
+@NonNullByDefault
+public class YandexStationWebSocketFactory {
+    private static final int MIN_THREADS = 2;
+    private static final int MAX_THREADS = 8;
+    private static final int SELECTORS = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(YandexStationWebSocketFactory.class);
+    private final QueuedThreadPool threadPool;
+    private final WebSocketClient webSocketClient;
+
+    /**
+     * Instantiates a new websocket factory and starts the shared client.
+     */
+    @Activate
+    public YandexStationWebSocketFactory() {
+        threadPool = new QueuedThreadPool(MAX_THREADS, MIN_THREADS);
+        threadPool.setName("OH-binding-yandexstation-ws");
+        threadPool.setDaemon(true);
+
+        HttpClient httpClient = new HttpClient(new HttpClientTransportOverHTTP(SELECTORS),
+                new SslContextFactory.Client(true));
+        httpClient.setExecutor(threadPool);
+
+        webSocketClient = new WebSocketClient(httpClient);
+        try {
+            webSocketClient.start();
+        } catch (Exception e) {
+            logger.error("Could not start webSocketClient, message {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the shared client.
+     */
+    @Deactivate
+    public void deactivate() {
+        try {
+            webSocketClient.stop();
+        } catch (Exception e) {
+            logger.error("Could not stop webSocketClient, message {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Connect websocket.
+     *
+     * @param websocket the websocket
+     * @param uri the uri
+     * @param request the upgrade request
+     * @return the future session
+     * @throws IOException the io exception
+     */
+    public Future<Session> connect(YandexStationWebsocket websocket, URI uri, ClientUpgradeRequest request)
+            throws IOException {
+        return webSocketClient.connect(websocket, uri, request);
+    }
+
+    /**
+     * Gets count of open sessions.
+     *
+     * @return the open sessions count
+     */
+    public int getOpenSessions() {
+        return webSocketClient.getOpenSessions().size();
+    }
+
+    /**
+     * Gets count of threads of the shared pool.
+     *
+     * @return the threads count
+     */
+    public int getThreads() {
+        return threadPool.getThreads();
+    }
+
+    /**
+     * Gets max count of threads of the shared pool.
+     *
+     * @return the max threads count
+     */
+    public int getMaxThreads() {
+        return threadPool.getMaxThreads();
+    }
+}
@@ -13,6 +13,10 @@
 package org.openhab.binding.yandexstation.internal;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -21,8 +25,10 @@ import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketFrame;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +44,9 @@ public class YandexStationWebsocket {
     private @Nullable Session session;
     private final Logger logger = LoggerFactory.getLogger(YandexStationWebsocket.class);
     private @Nullable YandexStationWebsocketInterface websocketHandler;
+    private @Nullable CompletableFuture<Void> pendingPong;
+    private YandexStationOutboundQueue outboundQueue = new YandexStationOutboundQueue(
+            YandexStationBindingConstants.OUTBOUND_QUEUE_CAPACITY, YandexStationOutboundQueue.OverflowPolicy.DROP_OLDEST);
 
     /**
      * Add message handler.
@@ -48,6 +57,37 @@ public class YandexStationWebsocket {
         this.websocketHandler = yandexStationWebsocketInterfaceHandler;
     }
 
+    /**
+     * Remove message handler, session events are not reported anymore.
+     */
+    public void removeMessageHandler() {
+        this.websocketHandler = null;
+    }
+
+    /**
+     * Sets outbound queue, messages of the previous queue are dropped.
+     *
+     * @param outboundQueue the outbound queue
+     */
+    public void setOutboundQueue(YandexStationOutboundQueue outboundQueue) {
+        YandexStationOutboundQueue previous = this.outboundQueue;
+        this.outboundQueue = outboundQueue;
+        previous.clear();
+        Session current = session;
+        if (current != null) {
+            outboundQueue.attach(current);
+        }
+    }
+
+    /**
+     * Gets outbound queue.
+     *
+     * @return the outbound queue
+     */
+    public YandexStationOutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
     /**
      * On text.
      *
@@ -61,6 +101,39 @@ public class YandexStationWebsocket {
         }
     }
 
+    /**
+     * On frame.
+     *
+     * @param frame the frame
+     */
+    @OnWebSocketFrame
+    public void onFrame(Frame frame) {
+        CompletableFuture<Void> pong = pendingPong;
+        if (frame.getType() == Frame.Type.PONG && pong != null) {
+            pong.complete(null);
+        }
+    }
+
+    /**
+     * Send websocket ping control frame.
+     *
+     * @return the future completed by the pong
+     */
+    public CompletableFuture<Void> sendPing() {
+        Session current = session;
+        if (current == null || !current.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("Websocket is not connected"));
+        }
+        CompletableFuture<Void> pong = new CompletableFuture<>();
+        pendingPong = pong;
+        try {
+            current.getRemote().sendPing(ByteBuffer.allocate(0));
+        } catch (IOException | RuntimeException e) {
+            pong.completeExceptionally(e);
+        }
+        return pong;
+    }
+
     /**
      * On connect.
      *
@@ -69,6 +142,7 @@ public class YandexStationWebsocket {
     @OnWebSocketConnect
     public void onConnect(Session session) {
         this.session = session;
+        outboundQueue.attach(session);
         if (websocketHandler != null) {
             websocketHandler.onConnect(true);
         }
@@ -99,6 +173,7 @@ public class YandexStationWebsocket {
         if (statusCode != StatusCode.NORMAL) {
             logger.error("YandexStationWebSocket Connection closed: {} - {}", statusCode, reason);
         }
+        outboundQueue.detach();
 
         if (session != null) {
             if (!session.isOpen()) {
@@ -115,16 +190,30 @@ public class YandexStationWebsocket {
     }
 
     /**
-     * Send message.
+     * Send message, it waits in the outbound queue while websocket is not connected.
      *
-     * @param str the str
+     * @param type the message type used for coalescing, null if message can't be coalesced
+     * @param message the message supplier, called right before the message is written
+     * @param replay true if message should be sent after reconnect
+     * @param timeout the time in ms the message may wait for connection, 0 to wait without limit
+     * @param onFailure called when message is dropped, rejected, expired or failed to be written
+     * @return true if message was accepted
      */
-    public void sendMessage(String str) {
-        if (session != null) {
+    public boolean sendMessage(@Nullable String type, Supplier<String> message, boolean replay, long timeout,
+            Consumer<Throwable> onFailure) {
+        return outboundQueue.offer(type, message, replay, timeout, onFailure);
+    }
+
+    /**
+     * Disconnect websocket session without close handshake, e.g. when the connection is half-open.
+     */
+    public void disconnectWebsocketSession() {
+        Session current = session;
+        if (current != null) {
             try {
-                session.getRemote().sendString(str);
+                current.disconnect();
             } catch (IOException e) {
-                logger.error("YandexStation error sending message to websocket: {}", e.getMessage());
+                logger.debug("YandexStation error disconnecting websocket: {}", e.getMessage());
             }
         }
     }
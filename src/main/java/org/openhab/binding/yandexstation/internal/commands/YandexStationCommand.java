@@ -12,7 +12,6 @@
  */
 package org.openhab.binding.yandexstation.internal.commands;
 
-import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
 /**
@@ -29,8 +28,8 @@ public class YandexStationCommand {
     @SerializedName("serverActionEventPayload")
     private ServerActionEvent serverActionEvent;
 
-    @Expose(serialize = false)
-    private Object extra;
+    private transient Object extra;
+    private transient YandexStationCommandTypes type;
 
     /**
      * Sets command.
@@ -40,6 +39,7 @@ public class YandexStationCommand {
     public void setCommand(YandexStationCommandTypes command) {
         this.command = command.getCommand();
         this.extra = command.getExtra();
+        this.type = command;
     }
 
     /**
@@ -50,6 +50,7 @@ public class YandexStationCommand {
      */
     public YandexStationCommand(YandexStationCommandTypes command, Object value) {
         this.command = command.getCommand();
+        this.type = command;
         if (command == YandexStationCommandTypes.CMD_REWIND) {
             this.position = (Integer) value;
         } else if (command == YandexStationCommandTypes.CMD_SET_VOLUME) {
@@ -68,6 +69,7 @@ public class YandexStationCommand {
      */
     public YandexStationCommand(YandexStationCommandTypes command) {
         this.command = command.getCommand();
+        this.type = command;
     }
 
     /**
@@ -75,4 +77,49 @@ public class YandexStationCommand {
      */
     public YandexStationCommand() {
     }
+
+    /**
+     * Gets command type.
+     *
+     * @return the command type or null if command was not created from type
+     */
+    public YandexStationCommandTypes getType() {
+        return type;
+    }
+
+    /**
+     * Gets position.
+     *
+     * @return the position
+     */
+    public Integer getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets volume.
+     *
+     * @return the volume
+     */
+    public Double getVolume() {
+        return volume;
+    }
+
+    /**
+     * Gets text.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets server action event.
+     *
+     * @return the server action event
+     */
+    public ServerActionEvent getServerActionEvent() {
+        return serverActionEvent;
+    }
 }
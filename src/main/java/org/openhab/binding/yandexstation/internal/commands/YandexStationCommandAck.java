@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.commands;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexStationCommandAck} is describing station acknowledgement of a sent packet.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationCommandAck {
+    /**
+     * The Packet id.
+     */
+    public final String id;
+    /**
+     * The Status reported by station.
+     */
+    public final String status;
+    /**
+     * The Round trip time in ms.
+     */
+    public final long roundTripTime;
+    /**
+     * The Station processing time in ms, -1 if not reported.
+     */
+    public final long processingTime;
+
+    /**
+     * Instantiates a new Yandex station command ack.
+     *
+     * @param id the packet id
+     * @param status the status
+     * @param roundTripTime the round trip time
+     * @param processingTime the processing time
+     */
+    public YandexStationCommandAck(String id, String status, long roundTripTime, long processingTime) {
+        this.id = id;
+        this.status = status;
+        this.roundTripTime = roundTripTime;
+        this.processingTime = processingTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s rtt=%dms processing=%dms", id, status, roundTripTime, processingTime);
+    }
+}
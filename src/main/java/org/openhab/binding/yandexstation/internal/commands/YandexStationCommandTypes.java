@@ -70,6 +70,7 @@ public enum YandexStationCommandTypes {
 
     YandexStationCommandTypes(String command, String extra) {
         this.command = command;
+        this.extra = extra;
     }
 
     /**
@@ -82,7 +83,7 @@ public enum YandexStationCommandTypes {
     }
 
     /**
-     * Gets extra.
+     * Gets extra, the name of the command argument in the payload.
      *
      * @return the extra
      */
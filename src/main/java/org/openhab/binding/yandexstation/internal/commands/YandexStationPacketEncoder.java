@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.commands;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The {@link YandexStationPacketEncoder} is responsible for serializing packets sent to the station.
+ * Every {@link YandexStationCommandTypes} has a pre-built payload template, only id, token, timestamp
+ * and the command argument are spliced in. Dynamic payloads (server actions) use one shared serializer.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+public final class YandexStationPacketEncoder {
+    /**
+     * Shared serializer for dynamic payloads, Gson instances are thread-safe.
+     */
+    public static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final char[] PACKET_HEAD = "{\"conversationToken\":\"".toCharArray();
+    private static final char[] PACKET_ID = "\",\"id\":\"".toCharArray();
+    private static final char[] PACKET_PAYLOAD = "\",\"payload\":".toCharArray();
+    private static final char[] PACKET_SENT_TIME = ",\"sentTime\":".toCharArray();
+
+    private static final Map<YandexStationCommandTypes, char[]> PAYLOAD_TEMPLATES = new EnumMap<>(
+            YandexStationCommandTypes.class);
+    private static final Map<YandexStationCommandTypes, char[]> ARGUMENT_TEMPLATES = new EnumMap<>(
+            YandexStationCommandTypes.class);
+
+    static {
+        for (YandexStationCommandTypes type : YandexStationCommandTypes.values()) {
+            PAYLOAD_TEMPLATES.put(type, ("{\"command\":\"" + type.getCommand() + "\"").toCharArray());
+            if (type.getExtra() != null) {
+                ARGUMENT_TEMPLATES.put(type, (",\"" + type.getExtra() + "\":").toCharArray());
+            }
+        }
+    }
+
+    private YandexStationPacketEncoder() {
+    }
+
+    /**
+     * Encode packet.
+     *
+     * @param conversationToken the conversation token
+     * @param id the packet id
+     * @param sentTime the sent time
+     * @param command the command
+     * @return the packet json
+     */
+    public static String encode(String conversationToken, String id, long sentTime, YandexStationCommand command) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(PACKET_HEAD);
+        appendEscaped(sb, conversationToken);
+        sb.append(PACKET_ID);
+        appendEscaped(sb, id);
+        sb.append(PACKET_PAYLOAD);
+        appendPayload(sb, command);
+        sb.append(PACKET_SENT_TIME).append(sentTime).append('}');
+        return sb.toString();
+    }
+
+    private static void appendPayload(StringBuilder sb, YandexStationCommand command) {
+        YandexStationCommandTypes type = command.getType();
+        if (type == null) {
+            sb.append(GSON.toJson(command));
+            return;
+        }
+        sb.append(PAYLOAD_TEMPLATES.get(type));
+        char[] argument = ARGUMENT_TEMPLATES.get(type);
+        if (argument != null) {
+            switch (type) {
+                case CMD_REWIND:
+                    if (command.getPosition() != null) {
+                        sb.append(argument).append(command.getPosition().intValue());
+                    }
+                    break;
+                case CMD_SET_VOLUME:
+                    if (command.getVolume() != null) {
+                        sb.append(argument).append(command.getVolume().doubleValue());
+                    }
+                    break;
+                case CMD_SENT_TEXT:
+                    if (command.getText() != null) {
+                        sb.append(argument).append('"');
+                        appendEscaped(sb, command.getText());
+                        sb.append('"');
+                    }
+                    break;
+                case CMD_SERVER_ACTION:
+                    if (command.getServerActionEvent() != null) {
+                        sb.append(argument).append(GSON.toJson(command.getServerActionEvent()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        sb.append('}');
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+    }
+}
@@ -12,13 +12,8 @@
  */
 package org.openhab.binding.yandexstation.internal.commands;
 
-import java.util.Date;
 import java.util.UUID;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonParser;
-
 /**
  * The {@link YandexStationSendPacket} is responsible for YandexStationCommandTypes action, which are
  * sent to one of the channels.
@@ -29,8 +24,9 @@ public class YandexStationSendPacket {
 
     private String conversationToken;
     private String id;
-    private Object payload;
+    private YandexStationCommand command;
     private long sentTime;
+    private String json;
 
     /**
      * Instantiates a new Yandex station send packet.
@@ -41,10 +37,8 @@ public class YandexStationSendPacket {
     public YandexStationSendPacket(String conversationToken, YandexStationCommand command) {
         this.conversationToken = conversationToken;
         this.id = UUID.randomUUID().toString();
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
-        String payload = gson.toJson(command);
-        this.payload = JsonParser.parseString(payload).getAsJsonObject();
-        this.sentTime = new Date().getTime();
+        this.command = command;
+        this.sentTime = System.currentTimeMillis();
     }
 
     /**
@@ -53,7 +47,10 @@ public class YandexStationSendPacket {
      * @param conversationToken the conversation token
      */
     public void setConversationToken(String conversationToken) {
-        this.conversationToken = conversationToken;
+        if (!conversationToken.equals(this.conversationToken)) {
+            this.conversationToken = conversationToken;
+            this.json = null;
+        }
     }
 
     /**
@@ -63,6 +60,7 @@ public class YandexStationSendPacket {
      */
     public void setId(String id) {
         this.id = id;
+        this.json = null;
     }
 
     /**
@@ -75,12 +73,12 @@ public class YandexStationSendPacket {
     }
 
     /**
-     * Sets payload.
+     * Gets command.
      *
-     * @param payload the payload
+     * @return the command
      */
-    public void setPayload(String payload) {
-        this.payload = payload;
+    public YandexStationCommand getCommand() {
+        return command;
     }
 
     /**
@@ -90,11 +88,25 @@ public class YandexStationSendPacket {
      */
     public void setSentTime(long sentTime) {
         this.sentTime = sentTime;
+        this.json = null;
+    }
+
+    /**
+     * Gets sent time.
+     *
+     * @return the sent time
+     */
+    public long getSentTime() {
+        return sentTime;
     }
 
     @Override
     public String toString() {
-        Gson gson = new Gson();
-        return gson.toJson(this);
+        String result = json;
+        if (result == null) {
+            result = YandexStationPacketEncoder.encode(conversationToken, id, sentTime, command);
+            json = result;
+        }
+        return result;
     }
 }
@@ -75,8 +75,7 @@ public class YandexStationDiscoveryService extends AbstractDiscoveryService {
     protected void startScan() {
         logger.debug("Start scan");
         for (YandexStationBridge yandexToken : yandexTokenBridgeBusList) {
-            List<ApiDeviceResponse> devices = yandexToken.getDevices();
-            if (devices != null) {
+            yandexToken.getDevicesAsync().thenAccept(devices -> {
                 for (ApiDeviceResponse device : devices) {
                     logger.debug("found: {}", device.id);
                     ThingUID thingUID = new ThingUID(YandexStationBindingConstants.THING_TYPE_STATION,
@@ -87,7 +86,7 @@ public class YandexStationDiscoveryService extends AbstractDiscoveryService {
                             .build();
                     thingDiscovered(resultS);
                 }
-            }
+            });
         }
     }
 
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.dto;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexStationFrame} is a reusable, mutable holder of the station state fields used by the handler.
+ * Values keep the last known state of the station, the presence mask tells which of them came with the last frame.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationFrame {
+    public static final int SOFTWARE_VERSION = 1;
+    public static final int STATE = 1 << 1;
+    public static final int ALICE_STATE = 1 << 2;
+    public static final int PLAYING = 1 << 3;
+    public static final int VOLUME = 1 << 4;
+    public static final int PLAYER_STATE = 1 << 5;
+    public static final int DURATION = 1 << 6;
+    public static final int HAS_PROGRESS_BAR = 1 << 7;
+    public static final int PROGRESS = 1 << 8;
+    public static final int TRACK_ID = 1 << 9;
+    public static final int PLAYLIST_ID = 1 << 10;
+    public static final int PLAYLIST_TYPE = 1 << 11;
+    public static final int SUBTITLE = 1 << 12;
+    public static final int TITLE = 1 << 13;
+    public static final int TRACK_TYPE = 1 << 14;
+    public static final int COVER_URI = 1 << 15;
+    public static final int NEXT_ID = 1 << 16;
+    public static final int PREV_ID = 1 << 17;
+    public static final int REQUEST_ID = 1 << 18;
+    public static final int PROCESSING_TIME = 1 << 19;
+    public static final int STATUS = 1 << 20;
+
+    private int present;
+
+    /**
+     * The Request id, the id of the packet this frame answers.
+     */
+    public String requestId = "";
+    /**
+     * The Processing time in ms.
+     */
+    public long processingTime;
+    /**
+     * The Status.
+     */
+    public String status = "";
+    /**
+     * The Software version.
+     */
+    public String softwareVersion = "";
+    /**
+     * The Alice state.
+     */
+    public String aliceState = ""; // IDLE LISTENING SPEAKING BUSY
+    /**
+     * The Playing.
+     */
+    public boolean playing;
+    /**
+     * The Volume as reported by station (0.0 - 1.0).
+     */
+    public double volume;
+    /**
+     * The Duration.
+     */
+    public double duration;
+    /**
+     * The Has progress bar.
+     */
+    public boolean hasProgressBar;
+    /**
+     * The Progress.
+     */
+    public double progress;
+    /**
+     * The Track id.
+     */
+    public String trackId = "";
+    /**
+     * The Playlist id.
+     */
+    public String playlistId = "";
+    /**
+     * The Playlist type.
+     */
+    public String playlistType = "";
+    /**
+     * The Subtitle.
+     */
+    public String subtitle = "";
+    /**
+     * The Title.
+     */
+    public String title = "";
+    /**
+     * The Track type.
+     */
+    public String trackType = "";
+    /**
+     * The Cover uri.
+     */
+    public String coverURI = "";
+    /**
+     * The Next track id.
+     */
+    public String nextId = "";
+    /**
+     * The Prev track id.
+     */
+    public String prevId = "";
+
+    /**
+     * Clears the presence mask before decoding a new frame, last known values are kept.
+     */
+    public void reset() {
+        present = 0;
+    }
+
+    /**
+     * Marks field as received in the current frame.
+     *
+     * @param field the field bit
+     */
+    public void set(int field) {
+        present |= field;
+    }
+
+    /**
+     * Checks whether field was received in the current frame.
+     *
+     * @param field the field bit
+     * @return true if field is present
+     */
+    public boolean has(int field) {
+        return (present & field) != 0;
+    }
+
+    /**
+     * Gets volume in station units (0 - 10).
+     *
+     * @return the volume
+     */
+    public int getVolume() {
+        return (int) (volume * 10);
+    }
+
+    /**
+     * Sets volume in station units (0 - 10).
+     *
+     * @param volume the volume
+     */
+    public void setVolume(int volume) {
+        this.volume = volume / 10.0;
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.dto;
+
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.ALICE_STATE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.COVER_URI;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.DURATION;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.HAS_PROGRESS_BAR;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.NEXT_ID;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PLAYER_STATE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PLAYING;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PLAYLIST_ID;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PLAYLIST_TYPE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PREV_ID;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PROCESSING_TIME;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.PROGRESS;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.REQUEST_ID;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.SOFTWARE_VERSION;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.STATE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.STATUS;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.SUBTITLE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.TITLE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.TRACK_ID;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.TRACK_TYPE;
+import static org.openhab.binding.yandexstation.internal.dto.YandexStationFrame.VOLUME;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The {@link YandexStationFrameDecoder} is a streaming decoder of station websocket frames.
+ * It reads only the fields the handler publishes to channels into a reusable {@link YandexStationFrame}
+ * and skips everything else without building a DOM or DTO tree.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationFrameDecoder {
+
+    /**
+     * Decode frame.
+     *
+     * @param data the websocket message
+     * @param frame the frame holder to fill
+     * @throws IOException if the message is not a valid json
+     */
+    public void decode(String data, YandexStationFrame frame) throws IOException {
+        frame.reset();
+        try (JsonReader reader = new JsonReader(new StringReader(data))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "requestId":
+                        if (isString(reader)) {
+                            frame.requestId = reader.nextString();
+                            frame.set(REQUEST_ID);
+                        }
+                        break;
+                    case "processingTime":
+                        if (isNumber(reader)) {
+                            frame.processingTime = reader.nextLong();
+                            frame.set(PROCESSING_TIME);
+                        }
+                        break;
+                    case "status":
+                        if (isString(reader)) {
+                            frame.status = reader.nextString();
+                            frame.set(STATUS);
+                        }
+                        break;
+                    case "softwareVersion":
+                        if (isString(reader)) {
+                            frame.softwareVersion = reader.nextString();
+                            frame.set(SOFTWARE_VERSION);
+                        }
+                        break;
+                    case "state":
+                        if (isObject(reader)) {
+                            readState(reader, frame);
+                            frame.set(STATE);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void readState(JsonReader reader, YandexStationFrame frame) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "aliceState":
+                    if (isString(reader)) {
+                        frame.aliceState = reader.nextString();
+                        frame.set(ALICE_STATE);
+                    }
+                    break;
+                case "playing":
+                    if (isBoolean(reader)) {
+                        frame.playing = reader.nextBoolean();
+                        frame.set(PLAYING);
+                    }
+                    break;
+                case "volume":
+                    if (isNumber(reader)) {
+                        frame.volume = reader.nextDouble();
+                        frame.set(VOLUME);
+                    }
+                    break;
+                case "playerState":
+                    if (isObject(reader)) {
+                        readPlayerState(reader, frame);
+                        frame.set(PLAYER_STATE);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readPlayerState(JsonReader reader, YandexStationFrame frame) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "duration":
+                    if (isNumber(reader)) {
+                        frame.duration = reader.nextDouble();
+                        frame.set(DURATION);
+                    }
+                    break;
+                case "hasProgressBar":
+                    if (isBoolean(reader)) {
+                        frame.hasProgressBar = reader.nextBoolean();
+                        frame.set(HAS_PROGRESS_BAR);
+                    }
+                    break;
+                case "progress":
+                    if (isNumber(reader)) {
+                        frame.progress = reader.nextDouble();
+                        frame.set(PROGRESS);
+                    }
+                    break;
+                case "id":
+                    if (isString(reader)) {
+                        frame.trackId = reader.nextString();
+                        frame.set(TRACK_ID);
+                    }
+                    break;
+                case "playlistId":
+                    if (isString(reader)) {
+                        frame.playlistId = reader.nextString();
+                        frame.set(PLAYLIST_ID);
+                    }
+                    break;
+                case "playlistType":
+                    if (isString(reader)) {
+                        frame.playlistType = reader.nextString();
+                        frame.set(PLAYLIST_TYPE);
+                    }
+                    break;
+                case "subtitle":
+                    if (isString(reader)) {
+                        frame.subtitle = reader.nextString();
+                        frame.set(SUBTITLE);
+                    }
+                    break;
+                case "title":
+                    if (isString(reader)) {
+                        frame.title = reader.nextString();
+                        frame.set(TITLE);
+                    }
+                    break;
+                case "type":
+                    if (isString(reader)) {
+                        frame.trackType = reader.nextString();
+                        frame.set(TRACK_TYPE);
+                    }
+                    break;
+                case "extra":
+                    if (isObject(reader)) {
+                        readExtra(reader, frame);
+                    }
+                    break;
+                case "entityInfo":
+                    if (isObject(reader)) {
+                        readEntityInfo(reader, frame);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readExtra(JsonReader reader, YandexStationFrame frame) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("coverURI".equals(reader.nextName()) && isString(reader)) {
+                frame.coverURI = reader.nextString();
+                frame.set(COVER_URI);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readEntityInfo(JsonReader reader, YandexStationFrame frame) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "next":
+                    if (isObject(reader)) {
+                        String id = readId(reader);
+                        if (!id.isEmpty()) {
+                            frame.nextId = id;
+                            frame.set(NEXT_ID);
+                        }
+                    }
+                    break;
+                case "prev":
+                    if (isObject(reader)) {
+                        String id = readId(reader);
+                        if (!id.isEmpty()) {
+                            frame.prevId = id;
+                            frame.set(PREV_ID);
+                        }
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private String readId(JsonReader reader) throws IOException {
+        String id = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("id".equals(reader.nextName()) && isString(reader)) {
+                id = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id;
+    }
+
+    /*
+     * The type checks below skip explicit json nulls and values of unexpected type,
+     * so the corresponding field is simply reported as absent.
+     */
+
+    private boolean isString(JsonReader reader) throws IOException {
+        JsonToken next = reader.peek();
+        if (next == JsonToken.STRING || next == JsonToken.NUMBER) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    private boolean isNumber(JsonReader reader) throws IOException {
+        return expect(reader, JsonToken.NUMBER);
+    }
+
+    private boolean isBoolean(JsonReader reader) throws IOException {
+        return expect(reader, JsonToken.BOOLEAN);
+    }
+
+    private boolean isObject(JsonReader reader) throws IOException {
+        return expect(reader, JsonToken.BEGIN_OBJECT);
+    }
+
+    private boolean expect(JsonReader reader, JsonToken token) throws IOException {
+        if (reader.peek() == token) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+}
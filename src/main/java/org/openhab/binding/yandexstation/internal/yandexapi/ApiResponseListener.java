@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MimeTypes;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiContentResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiResponse;
+
+/**
+ * The {@link ApiResponseListener} collects the response content chunk by chunk as Jetty delivers it
+ * and completes a future with the response, so no thread waits for it. The content of a successful
+ * response may be decoded by a streaming parser instead of being converted to a string.
+ *
+ * @param <T> the parsed content type
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class ApiResponseListener<T> extends Response.Listener.Adapter {
+    /**
+     * The default max response content length in bytes.
+     */
+    public static final int MAX_CONTENT_LENGTH = 2 * 1024 * 1024;
+
+    /**
+     * The streaming parser of response content.
+     *
+     * @param <T> the parsed content type
+     */
+    @FunctionalInterface
+    public interface ContentParser<T> {
+        /**
+         * Parse content.
+         *
+         * @param content the content reader
+         * @return the parsed content
+         * @throws IOException if the content can't be parsed
+         */
+        T parse(Reader content) throws IOException;
+    }
+
+    private final CompletableFuture<ApiContentResponse<T>> future = new CompletableFuture<>();
+    private final int maxLength;
+    private final @Nullable ContentParser<T> parser;
+    private Charset charset = StandardCharsets.UTF_8;
+    private byte[] buffer = new byte[0];
+    private int length;
+
+    /**
+     * Instantiates a new response listener.
+     *
+     * @param maxLength the max response content length in bytes
+     * @param parser the parser of successful response content, null to keep the content as string
+     */
+    public ApiResponseListener(int maxLength, @Nullable ContentParser<T> parser) {
+        this.maxLength = maxLength;
+        this.parser = parser;
+    }
+
+    /**
+     * Sends request asynchronously.
+     *
+     * @param request the request
+     * @return the future response, completed by the http client thread
+     */
+    public static CompletableFuture<ApiResponse> send(Request request) {
+        return send(request, MAX_CONTENT_LENGTH, null).thenApply(response -> response);
+    }
+
+    /**
+     * Sends request asynchronously.
+     *
+     * @param <T> the parsed content type
+     * @param request the request
+     * @param maxLength the max response content length in bytes
+     * @param parser the parser of successful response content, null to keep the content as string
+     * @return the future response, completed by the http client thread
+     */
+    public static <T> CompletableFuture<ApiContentResponse<T>> send(Request request, int maxLength,
+            @Nullable ContentParser<T> parser) {
+        ApiResponseListener<T> listener = new ApiResponseListener<>(maxLength, parser);
+        request.send(listener);
+        return listener.future;
+    }
+
+    @Override
+    public void onHeaders(Response response) {
+        String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        if (contentType != null) {
+            String encoding = MimeTypes.getCharsetFromContentType(contentType);
+            if (encoding != null && Charset.isSupported(encoding)) {
+                charset = Charset.forName(encoding);
+            }
+        }
+        long contentLength = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH.asString());
+        if (contentLength > maxLength) {
+            response.abort(new ApiException(String.format("Response is too large: %d bytes", contentLength)));
+        } else if (contentLength > 0) {
+            buffer = new byte[(int) contentLength];
+        }
+    }
+
+    @Override
+    public void onContent(Response response, ByteBuffer content) {
+        int chunk = content.remaining();
+        if (length + chunk > maxLength) {
+            response.abort(new ApiException(String.format("Response is larger than %d bytes", maxLength)));
+            return;
+        }
+        if (length + chunk > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxLength, Math.max(length + chunk, buffer.length * 2)));
+        }
+        content.get(buffer, length, chunk);
+        length += chunk;
+    }
+
+    @Override
+    public void onComplete(Result result) {
+        if (result.isFailed()) {
+            future.completeExceptionally(result.getFailure());
+            return;
+        }
+        Response response = result.getResponse();
+        ApiContentResponse<T> apiResponse = new ApiContentResponse<>();
+        apiResponse.httpCode = response.getStatus();
+        apiResponse.reason = String.valueOf(response.getReason());
+        ContentParser<T> parser = this.parser;
+        if (parser != null && apiResponse.httpCode == 200) {
+            apiResponse.response = "";
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(buffer, 0, length), charset)) {
+                apiResponse.content = parser.parse(reader);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(
+                        new ApiException(apiResponse, "Can't parse response: " + e.getMessage(), e));
+                return;
+            }
+        } else {
+            apiResponse.response = new String(buffer, 0, length, charset);
+        }
+        buffer = new byte[0];
+        future.complete(apiResponse);
+    }
+}
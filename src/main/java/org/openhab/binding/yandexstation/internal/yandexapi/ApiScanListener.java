@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiContentResponse;
+
+/**
+ * The {@link ApiScanListener} scans the response content chunk by chunk as Jetty delivers it, without buffering.
+ * The response is aborted as soon as the scanner has found what it looks for, so the rest of the content
+ * is not downloaded.
+ *
+ * @param <T> the scan result type
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class ApiScanListener<T> extends Response.Listener.Adapter {
+    /**
+     * The incremental scanner of response content.
+     *
+     * @param <T> the scan result type
+     */
+    public interface ContentScanner<T> {
+        /**
+         * Scan content chunk.
+         *
+         * @param content the chunk
+         * @return true if the scan is finished, the rest of the content is not needed
+         */
+        boolean scan(ByteBuffer content);
+
+        /**
+         * Gets scan result.
+         *
+         * @return the result
+         */
+        T getResult();
+    }
+
+    private final CompletableFuture<ApiContentResponse<T>> future = new CompletableFuture<>();
+    private final int maxLength;
+    private final ContentScanner<T> scanner;
+    private int length;
+    private volatile boolean scanned;
+
+    /**
+     * Instantiates a new scan listener.
+     *
+     * @param maxLength the max response content length in bytes
+     * @param scanner the scanner of successful response content
+     */
+    public ApiScanListener(int maxLength, ContentScanner<T> scanner) {
+        this.maxLength = maxLength;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Sends request asynchronously.
+     *
+     * @param <T> the scan result type
+     * @param request the request
+     * @param maxLength the max response content length in bytes
+     * @param scanner the scanner of successful response content
+     * @return the future response, completed by the http client thread
+     */
+    public static <T> CompletableFuture<ApiContentResponse<T>> send(Request request, int maxLength,
+            ContentScanner<T> scanner) {
+        ApiScanListener<T> listener = new ApiScanListener<>(maxLength, scanner);
+        request.send(listener);
+        return listener.future;
+    }
+
+    @Override
+    public void onContent(Response response, ByteBuffer content) {
+        if (response.getStatus() != 200 || scanned) {
+            return;
+        }
+        length += content.remaining();
+        if (scanner.scan(content)) {
+            scanned = true;
+            response.abort(new ApiException("Scan is finished"));
+        } else if (length > maxLength) {
+            response.abort(new ApiException(String.format("Response is larger than %d bytes", maxLength)));
+        }
+    }
+
+    @Override
+    public void onComplete(Result result) {
+        // the response aborted by the finished scan is complete
+        if (result.isFailed() && !scanned) {
+            future.completeExceptionally(result.getFailure());
+            return;
+        }
+        Response response = result.getResponse();
+        ApiContentResponse<T> apiResponse = new ApiContentResponse<>();
+        apiResponse.httpCode = response.getStatus();
+        apiResponse.reason = String.valueOf(response.getReason());
+        apiResponse.response = "";
+        apiResponse.content = scanner.getResult();
+        future.complete(apiResponse);
+    }
+}
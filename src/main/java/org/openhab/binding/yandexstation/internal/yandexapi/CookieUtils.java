@@ -31,6 +31,10 @@ public class CookieUtils {
     }
 
     public HttpCookie extractParamFromCookie(String name, CookieStore cookieStore) {
+        if (cookieStore instanceof YandexCookieStore) {
+            HttpCookie cookie = ((YandexCookieStore) cookieStore).getCookie(name);
+            return cookie != null ? cookie : new HttpCookie(name, "");
+        }
         return cookieStore.getCookies().stream().filter(session -> session.getName().equals(name)).findFirst()
                 .orElseGet(() -> new HttpCookie(name, ""));
     }
@@ -40,11 +44,14 @@ public class CookieUtils {
     }
 
     public boolean isCookieHasSessionId(CookieStore store) {
+        if (store instanceof YandexCookieStore) {
+            return ((YandexCookieStore) store).hasSessionId();
+        }
         return store.getCookies().stream().anyMatch(session -> session.getName().equals("Session_id"));
     }
 
     public boolean isCookieNoSessionId(CookieStore store) {
-        return store.getCookies().stream().noneMatch(session -> session.getName().equals("Session_id"));
+        return !isCookieHasSessionId(store);
     }
 
     public String extractCSRFToken(String body) {
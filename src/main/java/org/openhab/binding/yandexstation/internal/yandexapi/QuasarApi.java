@@ -29,25 +29,27 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.WWWAuthenticationProtocolHandler;
 import org.eclipse.jetty.client.api.ContentProvider;
-import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.util.HttpCookieStore;
+import org.openhab.binding.yandexstation.internal.yandexapi.ApiResponseListener.ContentParser;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.APICloudDevicesResponse;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiContentResponse;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiResponse;
-import org.openhab.core.OpenHAB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -88,6 +90,7 @@ public class QuasarApi implements YandexApi {
     public static final String QUASAR_IOT_URL = "https://yandex.ru/quasar/iot";
 
     public static final String FILE_SCENARIOS = "scenarios";
+    public static final String FILE_SCENARIO_HASHES = "scenarioHashes";
     public static final String FILE_CAPTCHA = "captchaProtect";
     public static final String FILE_PASSPORT_COOKIE = "passportCookie.json";
     public static final String FILE_SESSION_COOKIE = "sessionCookie";
@@ -95,22 +98,48 @@ public class QuasarApi implements YandexApi {
     public static final String FILE_MUSIC_TOKEN = "musicToken";
     public static final String FILE_CSRF_TOKEN = "csrfToken";
 
+    /**
+     * Request timeout in sec.
+     */
+    private static final int REQUEST_TIMEOUT = 60;
+    /**
+     * Attempts count of a request rejected with 403.
+     */
+    private static final int REQUEST_RETRIES = 3;
+    /**
+     * Replays count of a request rejected with 401, after the session is refreshed.
+     */
+    private static final int REQUEST_REPLAYS = 1;
+    /**
+     * Delay of cookie file write in sec, cookie changes of subsequent requests are written at once.
+     */
+    private static final int COOKIE_WRITE_DELAY = 5;
+    private static final Gson COOKIE_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
     private final CookieManager cookieManager;
-    private volatile CookieStore cookieStore = new HttpCookieStore();
+    private final YandexCookieStore cookieStore = new YandexCookieStore(new HttpCookieStore());
+    private volatile long persistedCookies;
     private String bridgeID = "";
 
     private Gson gson = new Gson();
+    private volatile int maxResponseSize = ApiResponseListener.MAX_CONTENT_LENGTH;
     private YandexSession yaSession = new YandexSession();
 
     private CookieUtils cookieUtils = new CookieUtils();
+    private final YandexCredentialStore credentials;
+    private final QuasarCsrfTokenManager csrfTokens;
+    private final QuasarAuthCoordinator auth = new QuasarAuthCoordinator();
 
-    public QuasarApi(HttpClient httpClient, String bridgeID) {
+    public QuasarApi(HttpClient httpClient, String bridgeID, YandexCredentialStore credentials,
+            QuasarCsrfTokenManager csrfTokens) {
         this.httpClient = httpClient;
         this.httpClient.setConnectTimeout(60 * 1000);
 
         this.bridgeID = bridgeID;
+        this.credentials = credentials;
+        this.csrfTokens = csrfTokens;
         cookieManager = newCookieManager();
-        cookieStore = getCookies(cookieManager.getCookieStore());
+        readCookies(cookieStore);
         this.httpClient.setCookieStore(cookieStore);
     }
 
@@ -123,23 +152,23 @@ public class QuasarApi implements YandexApi {
     }
 
     public ApiResponse getTrackIdRequest(String path, String data, String xToken) throws ApiException {
-        HttpFields headers = new HttpFields();
-
-        if (yaSession.csrfToken.isEmpty()) {
-            yaSession.csrfToken = readCSRFToken(false).strip();
-        }
-        logger.trace("csrf is: {}", yaSession.csrfToken);
+        return YandexApi.await(getTrackIdRequestAsync(path, data, xToken));
+    }
 
-        headers.add("x-csrf-token", yaSession.csrfToken);
-        headers.add(HttpHeader.CONTENT_TYPE, "application/x-www-form-urlencoded");
-        headers.add("charset", "utf-8");
-        headers.add("Ya-Consumer-Authorization", "OAuth " + xToken);
-        ContentProvider content = new StringContentProvider("application/x-www-form-urlencoded", data,
-                StandardCharsets.UTF_8);
-        return sendRequest(path, "", content, HttpMethod.POST, headers);
+    private CompletableFuture<ApiResponse> getTrackIdRequestAsync(String path, String data, String xToken) {
+        return csrfTokenAsync().thenCompose(csrfToken -> {
+            HttpFields headers = new HttpFields();
+            headers.add("x-csrf-token", csrfToken);
+            headers.add(HttpHeader.CONTENT_TYPE, "application/x-www-form-urlencoded");
+            headers.add("charset", "utf-8");
+            headers.add("Ya-Consumer-Authorization", "OAuth " + xToken);
+            ContentProvider content = new StringContentProvider("application/x-www-form-urlencoded", data,
+                    StandardCharsets.UTF_8);
+            return sendAuthRequestAsync(path, "", content, HttpMethod.POST, headers);
+        });
     }
 
-    private ApiResponse getXTokenRequest(String path, String data) throws ApiException {
+    private CompletableFuture<ApiResponse> getXTokenRequestAsync(String path, String data) {
         if (cookieUtils.isCookieHasSessionId(cookieStore)) {
             HttpFields headers = new HttpFields();
 
@@ -159,234 +188,287 @@ public class QuasarApi implements YandexApi {
             ContentProvider content = new StringContentProvider("application/x-www-form-urlencoded", data,
                     StandardCharsets.UTF_8);
 
-            ApiResponse result = sendRequest(path, "", content, HttpMethod.POST, headers);
-            JsonObject jsonResponse = JsonParser.parseString(result.response).getAsJsonObject();
-            if (jsonResponse.has("status") && jsonResponse.get("status").getAsString().equals("error")) {
-                String errorReason = String.format("Yandex API request failed with %s",
-                        jsonResponse.get("errors").getAsJsonArray().get(0).getAsString());
-                throw new ApiException(errorReason);
-            }
-            return result;
+            return sendRequestAsync(path, "", content, HttpMethod.POST, headers).thenApply(result -> {
+                JsonObject jsonResponse = JsonParser.parseString(result.response).getAsJsonObject();
+                if (jsonResponse.has("status") && jsonResponse.get("status").getAsString().equals("error")) {
+                    String errorReason = String.format("Yandex API request failed with %s",
+                            jsonResponse.get("errors").getAsJsonArray().get(0).getAsString());
+                    throw new CompletionException(new ApiException(errorReason));
+                }
+                return result;
+            });
         }
-        return new ApiResponse();
+        return CompletableFuture.completedFuture(new ApiResponse());
     }
 
-    private String getCsrfToken() throws ApiException {
-        ApiResponse csrfTokenRequest = sendGetRequest(API_CSRF_TOKEN_URL, "app_platform=android", "");
-        String csrfToken = cookieUtils.extractCSRFToken(csrfTokenRequest.response);
-        logger.debug("csrf_token {}", csrfToken);
-
-        if (csrfToken.isEmpty()) {
-            logger.error("csrf_token not found");
-            throw new ApiException("XXXX");
-        } else if (csrfToken.equals("captcha")) {
-            String cookie = readCaptchaCookie();
-            if (!cookie.isBlank()) {
-                csrfTokenRequest = sendGetRequest(API_CSRF_TOKEN_URL, "app_platform=android", cookie);
-                csrfToken = cookieUtils.extractCSRFToken(csrfTokenRequest.response);
-                logger.debug("csrf_token {}", csrfToken);
-
-                if (csrfToken.isEmpty()) {
-                    logger.error("csrf_token not found");
-                    throw new ApiException("XXXX");
-                } else if (csrfToken.equals("captcha")) {
-                    throw new ApiException("Please login via browser and copy cookie to passportCookie.json");
-                } else {
-                    throw new ApiException(
-                            "Capcha requred. Please login via browser and copy cookie to passportCookie.json or fill captchaProtect file from browser");
+    private CompletableFuture<String> getCsrfTokenAsync() {
+        return sendGetRequestAsync(API_CSRF_TOKEN_URL, "app_platform=android", "").thenCompose(csrfTokenRequest -> {
+            String csrfToken = cookieUtils.extractCSRFToken(csrfTokenRequest.response);
+            logger.debug("csrf_token {}", csrfToken);
+
+            if (csrfToken.isEmpty()) {
+                logger.error("csrf_token not found");
+                return CompletableFuture.failedFuture(new ApiException("XXXX"));
+            } else if (csrfToken.equals("captcha")) {
+                String cookie = readCaptchaCookie();
+                if (cookie.isBlank()) {
+                    return CompletableFuture.failedFuture(
+                            new ApiException("Please login via browser and copy cookie to passportCookie.json"));
                 }
-            } else {
-                throw new ApiException("Please login via browser and copy cookie to passportCookie.json");
+                return sendGetRequestAsync(API_CSRF_TOKEN_URL, "app_platform=android", cookie).thenApply(retry -> {
+                    String token = cookieUtils.extractCSRFToken(retry.response);
+                    logger.debug("csrf_token {}", token);
+
+                    if (token.isEmpty()) {
+                        logger.error("csrf_token not found");
+                        throw new CompletionException(new ApiException("XXXX"));
+                    } else if (token.equals("captcha")) {
+                        throw new CompletionException(
+                                new ApiException("Please login via browser and copy cookie to passportCookie.json"));
+                    } else {
+                        throw new CompletionException(new ApiException(
+                                "Capcha requred. Please login via browser and copy cookie to passportCookie.json or fill captchaProtect file from browser"));
+                    }
+                });
             }
-        }
-
-        return csrfToken;
+            return CompletableFuture.completedFuture(csrfToken);
+        });
     }
 
-    private String getTrackId(String login, String csrfToken) throws ApiException {
-        String trackId = "";
+    private CompletableFuture<String> getTrackIdAsync(String login, String csrfToken) {
         String data = "csrf_token=" + csrfToken + "&login=" + login;
         String cookie = readCaptchaCookie();
-        ApiResponse trackIdRequest = sendPostRequest(API_REGISTRATION_START_URL, data,
-                "application/x-www-form-urlencoded", cookie);
-
-        JsonObject trackIdObj = JsonParser.parseString(trackIdRequest.response).getAsJsonObject();
-        if (trackIdObj.has("status") && trackIdObj.get("status").getAsString().equals("ok")
-                && trackIdObj.has("can_authorize")
-                && Boolean.TRUE.equals(trackIdObj.get("can_authorize").getAsBoolean()) && trackIdObj.has("track_id")) {
-            trackId = trackIdObj.get("track_id").getAsString();
-            logger.debug("track_id {}", trackId);
-        } else {
-            throw new ApiException("Cannot fetch track_id");
-        }
-        return trackId;
+        return sendPostRequestAsync(API_REGISTRATION_START_URL, data, "application/x-www-form-urlencoded", cookie)
+                .thenApply(trackIdRequest -> {
+                    JsonObject trackIdObj = JsonParser.parseString(trackIdRequest.response).getAsJsonObject();
+                    if (trackIdObj.has("status") && trackIdObj.get("status").getAsString().equals("ok")
+                            && trackIdObj.has("can_authorize")
+                            && Boolean.TRUE.equals(trackIdObj.get("can_authorize").getAsBoolean())
+                            && trackIdObj.has("track_id")) {
+                        String trackId = trackIdObj.get("track_id").getAsString();
+                        logger.debug("track_id {}", trackId);
+                        return trackId;
+                    } else {
+                        throw new CompletionException(new ApiException("Cannot fetch track_id"));
+                    }
+                });
     }
 
-    private String getXToken(String additionalParams) throws ApiException {
-        String xToken = "";
+    private CompletableFuture<String> getXTokenAsync(String additionalParams) {
         String data = USER_TOKEN_CLIENT_ID + additionalParams;
-        ApiResponse xTokenResponse = getXTokenRequest(API_PROXY_PASSPORT_URL, data);
-
-        xToken = cookieUtils.extractAccessToken(xTokenResponse.response);
-        if (!xToken.isBlank()) {
-            writeXtoken(xToken);
-        } else {
-            logger.debug("Cannot fetch xToken");
-        }
-        return xToken;
+        return getXTokenRequestAsync(API_PROXY_PASSPORT_URL, data).thenApply(xTokenResponse -> {
+            String xToken = cookieUtils.extractAccessToken(xTokenResponse.response);
+            if (!xToken.isBlank()) {
+                writeXtoken(xToken);
+            } else {
+                logger.debug("Cannot fetch xToken");
+            }
+            return xToken;
+        });
     }
 
-    private String getMusicToken(String xToken) throws ApiException {
-        String musicToken = "";
+    private CompletableFuture<String> getMusicTokenAsync(String xToken) {
         String data = MUSIC_TOKEN_CLIENT_ID + "&access_token=" + xToken;
-        ApiResponse getMusicToken = getXTokenRequest(OAUTH_MOBILE_URL, data);
-
-        musicToken = cookieUtils.extractAccessToken(getMusicToken.response);
-        if (!musicToken.isBlank()) {
-            writeMusicToken(musicToken);
-        } else {
-            logger.debug("Cannot fetch musicToken");
-        }
-        return musicToken;
+        return getXTokenRequestAsync(OAUTH_MOBILE_URL, data).thenApply(getMusicToken -> {
+            String musicToken = cookieUtils.extractAccessToken(getMusicToken.response);
+            if (!musicToken.isBlank()) {
+                writeMusicToken(musicToken);
+            } else {
+                logger.debug("Cannot fetch musicToken");
+            }
+            return musicToken;
+        });
     }
 
-    private void passwordCheck(String csrfToken, String trackId, String password) throws ApiException {
+    private CompletableFuture<ApiResponse> passwordCheckAsync(String csrfToken, String trackId, String password) {
         String data = "csrf_token=" + csrfToken + "&track_id=" + trackId + "&password=" + password;
         String cookie = ""; // readCaptchaCookie();
-        ApiResponse response = sendPostRequest(API_REGISTRATION_COMMIT_URL, data, "application/x-www-form-urlencoded",
-                cookie);
-
-        JsonObject result = JsonParser.parseString(response.response).getAsJsonObject();
-        if (result.has("status") && result.get("status").getAsString().equals("ok")) {
-            if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-                writeCookieSession(cookieStore);
-            }
-        } else if (result.has("errors")) {
-            throw new ApiException(result.get("errors").getAsJsonArray().toString());
-        } else {
-            throw new ApiException("Error sending password");
-        }
+        return sendPostRequestAsync(API_REGISTRATION_COMMIT_URL, data, "application/x-www-form-urlencoded", cookie)
+                .thenApply(response -> {
+                    JsonObject result = JsonParser.parseString(response.response).getAsJsonObject();
+                    if (result.has("status") && result.get("status").getAsString().equals("ok")) {
+                        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
+                            writeCookieSession(cookieStore);
+                        }
+                    } else if (result.has("errors")) {
+                        throw new CompletionException(
+                                new ApiException(result.get("errors").getAsJsonArray().toString()));
+                    } else {
+                        throw new CompletionException(new ApiException("Error sending password"));
+                    }
+                    return response;
+                });
     }
 
     public YandexSession createSession(String username, String password, String cookies) throws ApiException {
-        yaSession = new YandexSession(username, password);
+        return YandexApi.await(createSessionAsync(username, password, cookies));
+    }
+
+    /**
+     * Creates session asynchronously: logs in with username and password unless the cookies
+     * have a session id, then fetches x-token and music token.
+     *
+     * @param username the username
+     * @param password the password
+     * @param cookies the cookies json from the bridge configuration, may be empty
+     * @return the future session
+     */
+    public CompletableFuture<YandexSession> createSessionAsync(String username, String password, String cookies) {
+        YandexSession session = new YandexSession(username, password);
+        yaSession = session;
+        // the files may be edited by the user between sessions
+        credentials.load();
 
         if (!cookies.isEmpty()) {
             writeCookie(cookies);
-            cookieStore = getCookies(cookieManager.getCookieStore());
+            readCookies(cookieStore);
         } else {
             deleteCookieFile();
         }
 
         if (cookieUtils.isCookieNoSessionId(cookieStore)) {
-
-            sendGetRequest(API_AUTH_WELCOME_URL, "", ""); // why?
-
-            yaSession.csrfToken = getCsrfToken();
-            yaSession.trackId = getTrackId(username, yaSession.csrfToken);
-
-            passwordCheck(yaSession.csrfToken, yaSession.trackId, password);
-
-            if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-                yaSession.xToken = getXToken("&track_id=" + yaSession.trackId);
-                yaSession.musicToken = getMusicToken(yaSession.xToken);
-            }
+            return sendGetRequestAsync(API_AUTH_WELCOME_URL, "", "") // why?
+                    .thenCompose(welcome -> getCsrfTokenAsync()).thenCompose(csrfToken -> {
+                        session.csrfToken = csrfToken;
+                        return getTrackIdAsync(username, csrfToken);
+                    }).thenCompose(trackId -> {
+                        session.trackId = trackId;
+                        return passwordCheckAsync(session.csrfToken, trackId, password);
+                    }).thenCompose(checked -> {
+                        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
+                            return getXTokenAsync("&track_id=" + session.trackId).thenCompose(xToken -> {
+                                session.xToken = xToken;
+                                return getMusicTokenAsync(xToken);
+                            }).thenApply(musicToken -> {
+                                session.musicToken = musicToken;
+                                return session;
+                            });
+                        }
+                        return CompletableFuture.completedFuture(session);
+                    });
         } else {
-            yaSession.xToken = readXtoken();
-            if (yaSession.xToken.isEmpty()) {
-                yaSession.xToken = getXToken("");
-            }
-            yaSession.musicToken = getMusicToken(yaSession.xToken);
+            session.xToken = readXtoken();
+            CompletableFuture<String> xToken = session.xToken.isEmpty() ? getXTokenAsync("")
+                    : CompletableFuture.completedFuture(session.xToken);
+            return xToken.thenCompose(token -> {
+                session.xToken = token;
+                return getMusicTokenAsync(token);
+            }).thenApply(musicToken -> {
+                session.musicToken = musicToken;
+                return session;
+            });
         }
-        return yaSession;
     }
 
     public boolean refreshCookie() throws ApiException {
+        return YandexApi.await(refreshCookieAsync());
+    }
+
+    /**
+     * Refreshes session cookie by x-token asynchronously.
+     *
+     * @return the future, true if the cookie is refreshed, false if there is no x-token
+     */
+    public CompletableFuture<Boolean> refreshCookieAsync() {
         yaSession.xToken = readXtoken();
         if (yaSession.xToken.isBlank()) {
             logger.error("refreshCookie: xToken is empty");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
-        String passportHost = "";
 
         String data = "type=x-token&retpath=https://www.yandex.ru";
-        ApiResponse trackIdResponse = getTrackIdRequest(API_PROXY_AUTH_X_TOKEN_URL, data, yaSession.xToken);
-
-        JsonObject trackIdObj = JsonParser.parseString(trackIdResponse.response).getAsJsonObject();
-        if (trackIdObj.has("status") && trackIdObj.get("status").getAsString().equals("ok")
-                && trackIdObj.has("track_id") && trackIdObj.has("passport_host")) {
-            yaSession.trackId = trackIdObj.get("track_id").getAsString();
-            passportHost = trackIdObj.get("passport_host").getAsString();
-            logger.debug("track_id {}", yaSession.trackId);
-
-            ApiResponse response = sendGetRequest(passportHost + "/auth/session/", "?track_id=" + yaSession.trackId,
-                    "");
-            if (response.httpCode != 200) {
-                logger.error("Cannot refresh cookie");
-                throw new ApiException("Cannot refresh cookie");
-            }
-        } else {
-            logger.error("Cannot refresh cookie");
-            throw new ApiException("Cannot fetch track_id");
-        }
-
-        yaSession.csrfToken = readCSRFToken(true);
-        return true;
+        return getTrackIdRequestAsync(API_PROXY_AUTH_X_TOKEN_URL, data, yaSession.xToken)
+                .thenCompose(trackIdResponse -> {
+                    JsonObject trackIdObj = JsonParser.parseString(trackIdResponse.response).getAsJsonObject();
+                    if (trackIdObj.has("status") && trackIdObj.get("status").getAsString().equals("ok")
+                            && trackIdObj.has("track_id") && trackIdObj.has("passport_host")) {
+                        yaSession.trackId = trackIdObj.get("track_id").getAsString();
+                        String passportHost = trackIdObj.get("passport_host").getAsString();
+                        logger.debug("track_id {}", yaSession.trackId);
+
+                        return sendAuthRequestAsync(passportHost + "/auth/session/",
+                                "?track_id=" + yaSession.trackId, null, HttpMethod.GET, new HttpFields());
+                    } else {
+                        logger.error("Cannot refresh cookie");
+                        return CompletableFuture.failedFuture(new ApiException("Cannot fetch track_id"));
+                    }
+                }).thenCompose(response -> {
+                    if (response.httpCode != 200) {
+                        logger.error("Cannot refresh cookie");
+                        return CompletableFuture.failedFuture(new ApiException("Cannot refresh cookie"));
+                    }
+                    // the token of the previous session is not valid, the next request downloads a new one
+                    csrfTokens.invalidate();
+                    return CompletableFuture.completedFuture(true);
+                });
     }
 
     public APICloudDevicesResponse getDevicesList() throws ApiException {
+        return YandexApi.await(getDevicesListAsync());
+    }
+
+    /**
+     * Gets devices list asynchronously.
+     *
+     * @return the future devices list
+     */
+    public CompletableFuture<APICloudDevicesResponse> getDevicesListAsync() {
         String sessionId = cookieUtils.extractSessionIdFromCookie(cookieStore);
-        ApiResponse response = sendGetRequest(DEVICES_URL, "", "Session_id=" + sessionId);
-        Gson gson = new Gson();
-        APICloudDevicesResponse resp = gson.fromJson(response.response, APICloudDevicesResponse.class);
-        return Objects.requireNonNullElseGet(resp, APICloudDevicesResponse::new);
+        HttpFields headers = new HttpFields();
+        headers.add(HttpHeader.COOKIE, "Session_id=" + sessionId);
+        return sendRequestAsync(DEVICES_URL, "", null, HttpMethod.GET, headers, QuasarResponseDecoder::decodeDevices)
+                .thenApply(response -> Objects.requireNonNullElseGet(response.content, APICloudDevicesResponse::new));
     }
 
     public String getWssUrl() throws ApiException {
         return getDevicesList().updates_url;
     }
 
+    /**
+     * Gets websocket url of the device updates asynchronously.
+     *
+     * @return the future url
+     */
+    public CompletableFuture<String> getWssUrlAsync() {
+        return getDevicesListAsync().thenApply(devices -> devices.updates_url);
+    }
+
     public Map<String, String> getDevices() throws ApiException {
-        Map<String, String> yandexDevices = new HashMap<>();
-        APICloudDevicesResponse devices = getDevicesList();
-        for (APICloudDevicesResponse.Households house : devices.households) {
-            for (APICloudDevicesResponse.Rooms room : house.rooms) {
-                for (APICloudDevicesResponse.Items item : room.items) {
-                    if (item.guasarInfo != null) {
-                        logger.debug("station ID {}", item.guasarInfo.deviceId);
-                        yandexDevices.put(item.id, item.guasarInfo.deviceId);
+        return YandexApi.await(getDevicesAsync());
+    }
+
+    /**
+     * Gets station ids by device id asynchronously.
+     *
+     * @return the future station ids by device id
+     */
+    public CompletableFuture<Map<String, String>> getDevicesAsync() {
+        return getDevicesListAsync().thenApply(devices -> {
+            Map<String, String> yandexDevices = new HashMap<>();
+            for (APICloudDevicesResponse.Households house : devices.households) {
+                for (APICloudDevicesResponse.Rooms room : house.rooms) {
+                    for (APICloudDevicesResponse.Items item : room.items) {
+                        if (!item.guasarInfo.deviceId.isEmpty()) {
+                            logger.debug("station ID {}", item.guasarInfo.deviceId);
+                            yandexDevices.put(item.id, item.guasarInfo.deviceId);
+                        }
                     }
                 }
             }
-        }
-        return yandexDevices;
+            return yandexDevices;
+        });
     }
 
     public String readCaptchaCookie() {
-        String cookie = "";
-        File file = getFile(FILE_CAPTCHA);
-        try {
-            if (!file.exists()) {
-                file.getParentFile().mkdirs();
-                Files.writeString(file.toPath(), "", StandardCharsets.UTF_8);
-            } else {
-                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-                if (!lines.isEmpty()) {
-                    cookie = lines.get(0);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Cannot write to file {}", file.getName());
-        }
-        return cookie;
+        return credentials.get(FILE_CAPTCHA);
     }
 
-    private CookieStore getCookies(CookieStore cookieStore) {
+    private void readCookies(CookieStore cookieStore) {
         File file = getFile(FILE_PASSPORT_COOKIE);
         List<YandexCookies> cookiesList = null;
         try {
             if (!file.exists()) {
-                return cookieManager.getCookieStore();
+                return;
             } else {
                 JsonReader reader = new JsonReader(new FileReader(file));
                 Type listType = new TypeToken<ArrayList<YandexCookies>>() {
@@ -412,10 +494,28 @@ public class QuasarApi implements YandexApi {
                 }
             });
         }
-        return cookieManager.getCookieStore();
+        // the cookies are just read from the file
+        persistedCookies = this.cookieStore.getVersion();
     }
 
-    private void writeCookie(CookieStore cookieStore) {
+    /**
+     * Schedules cookie file write if the cookies are changed since the last write.
+     */
+    private void writeCookie() {
+        if (cookieStore.getVersion() != persistedCookies) {
+            credentials.writeLater(FILE_PASSPORT_COOKIE, this::cookiesToJson, COOKIE_WRITE_DELAY, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Writes cookie file immediately if its write is scheduled.
+     */
+    public void flushCookies() {
+        credentials.writeNow(FILE_PASSPORT_COOKIE);
+    }
+
+    private String cookiesToJson() {
+        persistedCookies = cookieStore.getVersion();
         List<YandexCookies> lislCookies = new ArrayList<>();
         cookieStore.getCookies().forEach(cookie -> {
             YandexCookies cookies = new YandexCookies();
@@ -427,23 +527,11 @@ public class QuasarApi implements YandexApi {
             cookies.secure = cookie.getSecure();
             lislCookies.add(cookies);
         });
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
-        String json = gson.toJson(lislCookies);
-        File file = getFile(FILE_PASSPORT_COOKIE);
-        boolean createOk = file.getParentFile().mkdirs();
-        if (createOk) {
-            logger.debug("Folders {} created", file.getAbsolutePath());
-        }
-        try {
-            Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            logger.error("Cannot write to file {}", file.getName());
-        }
+        return COOKIE_GSON.toJson(lislCookies);
     }
 
     public File getFile(String name) {
-        return new File(OpenHAB.getUserDataFolder() + File.separator + "YandexStation" + File.separator + bridgeID + "_"
-                + name);
+        return credentials.getFile(name);
     }
 
     private void writeCookie(String cookieStore) {
@@ -476,173 +564,183 @@ public class QuasarApi implements YandexApi {
             }
         });
 
-        File file = getFile(FILE_SESSION_COOKIE);
-        if (file.getParentFile().mkdirs()) {
-            logger.debug("Folders {} created", file.getAbsolutePath());
-        }
-        try {
-            Files.writeString(file.toPath(), ref.sessionCookie.strip(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            logger.error("Cannot write to file {}", file.getName());
-        }
+        credentials.put(FILE_SESSION_COOKIE, ref.sessionCookie.strip());
     }
 
     private void writeXtoken(String accessToken) {
-        File file = getFile(FILE_X_TOKEN);
-        if (file.getParentFile().mkdirs()) {
-            logger.debug("Folders {} created", file.getAbsolutePath());
-        }
-
-        try {
-            Files.writeString(file.toPath(), accessToken, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            logger.error("Cannot write to file {}", file.getName());
-        }
+        credentials.put(FILE_X_TOKEN, accessToken);
     }
 
     public String readXtoken() {
-        String token = "";
-        File file = getFile(FILE_X_TOKEN);
-        try {
-            if (file.exists()) {
-                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-                if (!lines.isEmpty()) {
-                    token = lines.get(0);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Can't read xtoken file");
-        }
-        return token;
+        return credentials.get(FILE_X_TOKEN);
     }
 
     private void writeMusicToken(String musicToken) {
-        File file = getFile(FILE_MUSIC_TOKEN);
-        if (file.getParentFile().mkdirs()) {
-            logger.debug("Folders {} created", file.getAbsolutePath());
-        }
-        try {
-            Files.writeString(file.toPath(), musicToken, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            logger.error("Cannot write to file {}", file.getName());
-        }
+        credentials.put(FILE_MUSIC_TOKEN, musicToken);
     }
 
     public String readMusicToken() {
-        String token = "";
-        File file = getFile(FILE_MUSIC_TOKEN);
-        try {
-            if (file.exists()) {
-                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-                if (!lines.isEmpty()) {
-                    token = lines.get(0);
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Can't read musicToken file");
-        }
-        return token;
+        return credentials.get(FILE_MUSIC_TOKEN);
+    }
+
+    /**
+     * Gets credential store statistics.
+     *
+     * @return the statistics
+     */
+    public String getCredentialStatistics() {
+        return credentials.getStatistics();
     }
 
     public void deleteCookieFile() {
-        File file = getFile(FILE_PASSPORT_COOKIE);
-        file.delete();
+        credentials.delete(FILE_PASSPORT_COOKIE);
     }
 
     public void deleteCaptchaFile() {
-        File file = getFile(FILE_CAPTCHA);
-        file.delete();
+        credentials.delete(FILE_CAPTCHA);
     }
 
     public void deleteSessionFile() {
-        File file = getFile(FILE_SESSION_COOKIE);
-        file.delete();
+        credentials.delete(FILE_SESSION_COOKIE);
     }
 
     public void deleteXTokenFile() {
-        File file = getFile(FILE_X_TOKEN);
-        file.delete();
+        credentials.delete(FILE_X_TOKEN);
     }
 
     public void deleteMusicTokenFile() {
-        File file = getFile(FILE_MUSIC_TOKEN);
-        file.delete();
+        credentials.delete(FILE_MUSIC_TOKEN);
     }
 
     public void deleteCsrfTokenFile() {
-        File file = getFile(FILE_CSRF_TOKEN);
-        file.delete();
+        csrfTokens.invalidate();
     }
 
     public void deleteScenariosFile() {
         File file = getFile(FILE_SCENARIOS);
         file.delete();
+        credentials.delete(FILE_SCENARIO_HASHES);
     }
 
-    private String refreshCSRFToken(String cookie) {
-        String csrfToken = "";
-        // HttpCookie session = extractParamFromCookie("Session_id", cookieStore);
-        // HttpCookie yandexUid = extractParamFromCookie("yandexuid", cookieStore);
-        // String cookies = session.getName() + "=" + session.getValue() + ";" + yandexUid.getName() + "="
-        // + yandexUid.getValue();
-
+    /**
+     * Reads lines of the scenario content hashes file.
+     *
+     * @return the lines, empty if there is no file
+     */
+    public List<String> readScenarioHashes() {
+        File file = getFile(FILE_SCENARIO_HASHES);
         try {
-            HttpFields headers = new HttpFields();
-            if (!cookie.isBlank()) {
-                headers.add(HttpHeader.COOKIE, cookie);
+            if (file.exists()) {
+                return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
             }
-            headers.add(HttpHeader.CONTENT_TYPE, "text/html");
-            headers.add("charset", "utf-8");
-
-            ApiResponse response = sendGetRequest(QUASAR_IOT_URL, "", headers);
-            csrfToken = cookieUtils.extractCSRFToken2(response.response);
-            logger.debug("csrf_token2 {}", csrfToken);
-        } catch (ApiException ignored) {
+        } catch (IOException e) {
+            logger.error("Can't read file {}: {}", file.getName(), e.getMessage());
         }
-        return csrfToken;
+        return List.of();
+    }
+
+    /**
+     * Writes the scenario content hashes file in the background.
+     *
+     * @param content the file content
+     */
+    public void writeScenarioHashes(String content) {
+        credentials.writeLater(FILE_SCENARIO_HASHES, () -> content, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Downloads csrf token from the Quasar page, the request is not retried, the caller handles failures.
+     *
+     * @return the future token, completed with empty string if it is not found
+     */
+    private CompletableFuture<String> fetchCsrfToken() {
+        Request request = httpClient.newRequest(QUASAR_IOT_URL).method(HttpMethod.GET);
+        request.timeout(REQUEST_TIMEOUT, TimeUnit.SECONDS);
+        request.header(HttpHeader.COOKIE,
+                YandexCookieStore.SESSION_ID + "=" + cookieStore.getValue(YandexCookieStore.SESSION_ID));
+        request.header(HttpHeader.CONTENT_TYPE, "text/html");
+        request.header("charset", "utf-8");
+        // the page download is aborted as soon as the token is found
+        return ApiScanListener
+                .send(request, ApiResponseListener.MAX_CONTENT_LENGTH, QuasarResponseDecoder.csrfTokenScanner())
+                .thenApply(response -> {
+                    if (response.httpCode != 200) {
+                        logger.debug("csrf_token2 request failed: {} {}", response.httpCode, response.reason);
+                        return "";
+                    }
+                    writeCookie();
+                    logger.debug("csrf_token2 {}", response.content);
+                    return response.content;
+                });
     }
 
     public String readCSRFToken(boolean update) {
-        String csrfToken = "";
-        File file = getFile(FILE_CSRF_TOKEN);
-        if (update) {
-            boolean isDeleted = file.delete();
-            logger.debug("File {} delete status: {}", file.getName(), isDeleted);
-        }
-        try {
-            String cookie = "Session_id=" + cookieUtils.extractSessionIdFromCookie(cookieStore);
-            if (!file.exists()) {
-                csrfToken = refreshCSRFToken(cookie);
-                Files.writeString(file.toPath(), csrfToken, StandardCharsets.UTF_8);
-            } else {
-                List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-                if (!lines.isEmpty()) {
-                    csrfToken = lines.get(0);
-                } else {
+        return readCSRFTokenAsync(update).join();
+    }
 
-                    csrfToken = refreshCSRFToken(cookie);
-                    Files.writeString(file.toPath(), csrfToken, StandardCharsets.UTF_8);
-                }
-            }
-        } catch (IOException e) {
+    /**
+     * Reads csrf token asynchronously, it is downloaded if there is no token or update is requested.
+     *
+     * @param update true to download a new token
+     * @return the future token, completed with empty string if it can't be downloaded
+     */
+    public CompletableFuture<String> readCSRFTokenAsync(boolean update) {
+        return update ? csrfTokens.refresh("", this::fetchCsrfToken) : csrfTokens.getToken(this::fetchCsrfToken);
+    }
 
-        }
-        return csrfToken;
+    private CompletableFuture<String> csrfTokenAsync() {
+        return readCSRFTokenAsync(false).thenApply(csrfToken -> {
+            logger.trace("csrf is: {}", csrfToken);
+            return csrfToken;
+        });
+    }
+
+    /**
+     * Gets csrf token statistics.
+     *
+     * @return the statistics
+     */
+    public String getCsrfStatistics() {
+        return csrfTokens.getStatistics();
     }
 
     public APIScenarioResponse getScenarios() {
         try {
-            String cookie = cookieUtils.extractSessionIdFromCookie(cookieStore);
-            ApiResponse response = sendGetRequest(SCENARIOUS_URL, "", "Session_id=" + cookie);
-            logger.debug("Scenarios json is: {}", response.response);
-            APIScenarioResponse resp = gson.fromJson(response.response, APIScenarioResponse.class);
-            return resp != null ? resp : new APIScenarioResponse();
-
-        } catch (ApiException | NullPointerException ignored) {
+            return YandexApi.await(getScenariosAsync());
+        } catch (ApiException ignored) {
         }
         return new APIScenarioResponse();
     }
 
+    /**
+     * Gets scenarios asynchronously.
+     *
+     * @return the future scenarios
+     */
+    public CompletableFuture<APIScenarioResponse> getScenariosAsync() {
+        String cookie = cookieUtils.extractSessionIdFromCookie(cookieStore);
+        HttpFields headers = new HttpFields();
+        headers.add(HttpHeader.COOKIE, "Session_id=" + cookie);
+        return sendRequestAsync(SCENARIOUS_URL, "", null, HttpMethod.GET, headers,
+                QuasarResponseDecoder::decodeScenarios).thenApply(response -> {
+                    APIScenarioResponse resp = response.content;
+                    if (resp == null) {
+                        return new APIScenarioResponse();
+                    }
+                    logger.debug("Scenarios received: {}", resp.scenarios.length);
+                    return resp;
+                });
+    }
+
+    /**
+     * Sets max size of the device and scenario list responses.
+     *
+     * @param maxResponseSize the max size in bytes
+     */
+    public void setMaxResponseSize(int maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+
     private CookieManager newCookieManager() {
         return new CookieManager(getCookieStore(), CookiePolicy.ACCEPT_ALL);
     }
@@ -655,35 +753,67 @@ public class QuasarApi implements YandexApi {
     }
 
     public boolean createScenario(String scenario) throws ApiException {
+        return YandexApi.await(createScenarioAsync(scenario));
+    }
+
+    /**
+     * Creates scenario asynchronously.
+     *
+     * @param scenario the scenario json
+     * @return the future, true if the scenario is created
+     */
+    public CompletableFuture<Boolean> createScenarioAsync(String scenario) {
         if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-            HttpCookie session = cookieUtils.extractParamFromCookie("Session_id", cookieStore);
-            HttpCookie yandexuid = cookieUtils.extractParamFromCookie("yandexuid", cookieStore);
-            String cookie = session.getName() + "=" + session.getValue() + ";" + yandexuid.getName() + "="
-                    + yandexuid.getValue();
-
-            ApiResponse response = sendPostRequest(SCENARIOUS_URL, scenario, "application/json", cookie);
-            logger.debug("response script creation: {}", response.response);
-            return response.httpCode == 200;
+            String cookie = cookieStore.getSessionHeader();
+
+            return sendPostRequestAsync(SCENARIOUS_URL, scenario, "application/json", cookie).thenApply(response -> {
+                logger.debug("response script creation: {}", response.response);
+                return response.httpCode == 200;
+            });
         }
-        return false;
+        return CompletableFuture.completedFuture(false);
     }
 
     public boolean updateScenario(String scenarioId, String scenario) throws ApiException {
+        return YandexApi.await(updateScenarioAsync(scenarioId, scenario));
+    }
+
+    /**
+     * Updates scenario asynchronously.
+     *
+     * @param scenarioId the scenario id
+     * @param scenario the scenario json
+     * @return the future, true if the scenario is updated
+     */
+    public CompletableFuture<Boolean> updateScenarioAsync(String scenarioId, String scenario) {
         if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-            ApiResponse response = sendPutRequest(SCENARIOUS_URL + "/" + scenarioId, scenario, "application/json");
-            logger.debug("response script update: {}", response.response);
-            return response.httpCode == 200;
+            return sendPutRequestAsync(SCENARIOUS_URL + "/" + scenarioId, scenario, "application/json")
+                    .thenApply(response -> {
+                        logger.debug("response script update: {}", response.response);
+                        return response.httpCode == 200;
+                    });
         }
-        return false;
+        return CompletableFuture.completedFuture(false);
     }
 
     public boolean deleteScenario(String scenarioId) throws ApiException {
+        return YandexApi.await(deleteScenarioAsync(scenarioId));
+    }
+
+    /**
+     * Deletes scenario asynchronously.
+     *
+     * @param scenarioId the scenario id
+     * @return the future, true if the scenario is deleted
+     */
+    public CompletableFuture<Boolean> deleteScenarioAsync(String scenarioId) {
         if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-            ApiResponse response = sendDeleteRequest(SCENARIOUS_URL + "/" + scenarioId);
-            logger.debug("response script delete: {}", response.response);
-            return response.httpCode == 200;
+            return sendDeleteRequestAsync(SCENARIOUS_URL + "/" + scenarioId).thenApply(response -> {
+                logger.debug("response script delete: {}", response.response);
+                return response.httpCode == 200;
+            });
         }
-        return false;
+        return CompletableFuture.completedFuture(false);
     }
 
     // **************************************************************************
@@ -691,79 +821,185 @@ public class QuasarApi implements YandexApi {
     // **************************************************************************
     private ApiResponse sendRequest(String path, String params, @Nullable ContentProvider content, HttpMethod method,
             HttpFields headers) throws ApiException {
+        return YandexApi.await(sendRequestAsync(path, params, content, method, headers));
+    }
+
+    private CompletableFuture<ApiResponse> sendRequestAsync(String path, String params,
+            @Nullable ContentProvider content, HttpMethod method, HttpFields headers) {
+        return this.<Object> sendRequestAsync(path, params, content, method, headers, null)
+                .thenApply(response -> response);
+    }
+
+    private <T> CompletableFuture<ApiContentResponse<T>> sendRequestAsync(String path, String params,
+            @Nullable ContentProvider content, HttpMethod method, HttpFields headers,
+            @Nullable ContentParser<T> parser) {
         logger.debug("send {}-request: {}", method, path);
 
         if (HttpMethod.GET.equals(method)) {
             httpClient.getProtocolHandlers().remove(WWWAuthenticationProtocolHandler.NAME);
         }
+        return sendRequestAsync(path, params, content, method, headers, parser, REQUEST_REPLAYS);
+    }
 
-        ApiResponse result = new ApiResponse();
-        ;
-        String errorReason = "";
-        Integer retry = 3;
-        while (retry > 0) {
-            Request request = httpClient.newRequest(path + (params.isEmpty() ? "" : params));
-            // request.getHeaders().put(HttpHeader.USER_AGENT, YANDEX_USER_AGENT);
+    /**
+     * Sends request of the session refresh, it is not paused by the refresh and not replayed.
+     */
+    private CompletableFuture<ApiResponse> sendAuthRequestAsync(String path, String params,
+            @Nullable ContentProvider content, HttpMethod method, HttpFields headers) {
+        logger.debug("send {}-request: {}", method, path);
 
-            if (headers.size() > 0) {
-                request.getHeaders().addAll(headers);
-            }
+        if (HttpMethod.GET.equals(method)) {
+            httpClient.getProtocolHandlers().remove(WWWAuthenticationProtocolHandler.NAME);
+        }
+        return this.<Object> sendRequestAsync(path, params, content, method, headers, null, REQUEST_RETRIES, 0,
+                auth.getGeneration()).thenApply(response -> response);
+    }
+
+    /**
+     * Sends request when the session is not being refreshed.
+     */
+    private <T> CompletableFuture<ApiContentResponse<T>> sendRequestAsync(String path, String params,
+            @Nullable ContentProvider content, HttpMethod method, HttpFields headers,
+            @Nullable ContentParser<T> parser, int replays) {
+        return auth.whenReady().thenCompose(generation -> sendRequestAsync(path, params, content, method, headers,
+                parser, REQUEST_RETRIES, replays, generation));
+    }
 
-            request.method(method);
+    private <T> CompletableFuture<ApiContentResponse<T>> sendRequestAsync(String path, String params,
+            @Nullable ContentProvider content, HttpMethod method, HttpFields headers,
+            @Nullable ContentParser<T> parser, int retry, int replays, long generation) {
+        Request request = httpClient.newRequest(path + (params.isEmpty() ? "" : params));
+        // request.getHeaders().put(HttpHeader.USER_AGENT, YANDEX_USER_AGENT);
 
-            try {
-                if (content != null) {
-                    request.content(content);
-                }
+        if (headers.size() > 0) {
+            request.getHeaders().addAll(headers);
+        }
 
-                ContentResponse contentResponse = request.send();
-                result.httpCode = contentResponse.getStatus();
-                if (result.httpCode == 200) {
-                    result.response = contentResponse.getContentAsString();
-                    writeCookie(cookieStore);
-                    return result;
-                } else if (result.httpCode == 401) {
-                    errorReason = contentResponse.getStatus() + " " + contentResponse.getReason();
-                    result.response = contentResponse.getReason();
-                    logger.error("sendRequest {}: {}", method, errorReason);
-                    refreshCookie();
-                    retry = 0;
-                } else if (result.httpCode == 403) {
-                    errorReason = contentResponse.getStatus() + " " + contentResponse.getReason();
-                    result.response = contentResponse.getReason();
-                    yaSession.csrfToken = readCSRFToken(true);
-                    headers.put("x-csrf-token", yaSession.csrfToken);
-                    retry--;
-                    logger.error("sendRequest {}: {}", method, errorReason);
-                } else {
-                    errorReason = String.format("Yandex API request failed with %d: %s", contentResponse.getStatus(),
-                            contentResponse.getReason());
-                    logger.error("sendRequest {}: {}", method, errorReason);
-                    result.response = contentResponse.getReason();
-                    retry = 0;
-                }
-            } catch (InterruptedException | TimeoutException | ExecutionException e) {
-                retry = 0;
+        request.method(method);
+        request.timeout(REQUEST_TIMEOUT, TimeUnit.SECONDS);
+        if (content != null) {
+            request.content(content);
+        }
+
+        // only the device and scenario lists are decoded by a parser, the configured cap is not applied
+        // to the login and html pages
+        int maxLength = parser != null ? maxResponseSize : ApiResponseListener.MAX_CONTENT_LENGTH;
+        return ApiResponseListener.send(request, maxLength, parser).handle((result, e) -> {
+            if (e != null) {
                 StringBuilder sb = new StringBuilder();
                 for (StackTraceElement s : e.getStackTrace()) {
                     sb.append(s.toString()).append("\n");
                 }
                 logger.error("sendRequest ERROR: {}. Stacktrace: \n{}", e.getMessage(), sb);
+                return CompletableFuture
+                        .<ApiContentResponse<T>> failedFuture(new ApiException(String.valueOf(e.getMessage()), e));
             }
+            String errorReason;
+            if (result.httpCode == 200) {
+                writeCookie();
+                return CompletableFuture.completedFuture(result);
+            } else if (result.httpCode == 401) {
+                errorReason = result.httpCode + " " + result.reason;
+                result.response = result.reason;
+                logger.error("sendRequest {}: {}", method, errorReason);
+                if (replays <= 0) {
+                    return CompletableFuture
+                            .<ApiContentResponse<T>> failedFuture(new ApiException(result, errorReason));
+                }
+                return auth.refresh(generation, this::refreshCookieAsync).thenCompose(refreshed -> {
+                    if (!refreshed) {
+                        return CompletableFuture
+                                .<ApiContentResponse<T>> failedFuture(new ApiException(result, errorReason));
+                    }
+                    auth.replayed();
+                    logger.debug("replay {}-request after session refresh: {}", method, path);
+                    return renewHeadersAsync(headers).thenCompose(
+                            renewed -> sendRequestAsync(path, params, content, method, renewed, parser, replays - 1));
+                });
+            } else if (result.httpCode == 403) {
+                errorReason = result.httpCode + " " + result.reason;
+                result.response = result.reason;
+                logger.error("sendRequest {}: {}", method, errorReason);
+                String rejected = headers.get("x-csrf-token");
+                return csrfTokens.refresh(rejected == null ? "" : rejected, this::fetchCsrfToken)
+                        .thenCompose(csrfToken -> {
+                            headers.put("x-csrf-token", csrfToken);
+                            if (retry > 1) {
+                                return sendRequestAsync(path, params, content, method, headers, parser, retry - 1,
+                                        replays, generation);
+                            }
+                            return CompletableFuture
+                                    .<ApiContentResponse<T>> failedFuture(new ApiException(result, errorReason));
+                        });
+            } else {
+                errorReason = String.format("Yandex API request failed with %d: %s", result.httpCode, result.reason);
+                logger.error("sendRequest {}: {}", method, errorReason);
+                result.response = result.reason;
+                return CompletableFuture.<ApiContentResponse<T>> failedFuture(new ApiException(result, errorReason));
+            }
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Renews the session cookie and csrf token headers of the replayed request.
+     */
+    private CompletableFuture<HttpFields> renewHeadersAsync(HttpFields headers) {
+        String cookie = headers.get(HttpHeader.COOKIE);
+        if (cookie != null && cookie.startsWith(YandexCookieStore.SESSION_ID + "=")) {
+            headers.put(HttpHeader.COOKIE, cookieStore.getSessionHeader());
         }
-        throw new ApiException(result, errorReason);
+        if (!headers.containsKey("x-csrf-token")) {
+            return CompletableFuture.completedFuture(headers);
+        }
+        return csrfTokenAsync().thenApply(csrfToken -> {
+            headers.put("x-csrf-token", csrfToken);
+            return headers;
+        });
+    }
+
+    /**
+     * Gets session refresh statistics.
+     *
+     * @return the statistics
+     */
+    public String getAuthStatistics() {
+        return auth.getStatistics();
     }
 
     public ApiResponse sendGetRequest(String path, String params, String cookie) throws ApiException {
+        return YandexApi.await(sendGetRequestAsync(path, params, cookie));
+    }
+
+    public ApiResponse sendGetRequest(String path, String params, HttpFields headers) throws ApiException {
+        return YandexApi.await(sendGetRequestAsync(path, params, headers));
+    }
+
+    /**
+     * Send get request asynchronously.
+     *
+     * @param path the path
+     * @param params the params
+     * @param cookie the cookie, may be empty
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendGetRequestAsync(String path, String params, String cookie) {
         HttpFields headers = new HttpFields();
         if (!cookie.isEmpty()) {
             headers.add(HttpHeader.COOKIE, cookie);
         }
-        return sendRequest(path, params, null, HttpMethod.GET, headers);
+        return sendRequestAsync(path, params, null, HttpMethod.GET, headers);
     }
 
-    public ApiResponse sendGetRequest(String path, String params, HttpFields headers) throws ApiException {
-        return sendRequest(path, params, null, HttpMethod.GET, headers);
+    /**
+     * Send get request asynchronously.
+     *
+     * @param path the path
+     * @param params the params
+     * @param headers the headers
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendGetRequestAsync(String path, String params, HttpFields headers) {
+        return sendRequestAsync(path, params, null, HttpMethod.GET, headers);
     }
 
     @Override
@@ -783,68 +1019,86 @@ public class QuasarApi implements YandexApi {
 
     public ApiResponse sendPostRequest(String path, String data, String contentType, String cookie)
             throws ApiException {
-        HttpFields headers = new HttpFields();
-
-        if (yaSession.csrfToken.isEmpty()) {
-            yaSession.csrfToken = readCSRFToken(false).strip();
-        }
-        logger.trace("csrf is: {}", yaSession.csrfToken);
-
-        headers.add("x-csrf-token", yaSession.csrfToken);
-        headers.add(HttpHeader.CONTENT_TYPE, contentType);
-        headers.add("charset", "utf-8");
-
-        if (!cookie.isEmpty()) {
-            headers.add(HttpHeader.COOKIE, cookie);
-        }
-        ContentProvider content = new StringContentProvider(contentType, data, StandardCharsets.UTF_8);
-        return sendRequest(path, "", content, HttpMethod.POST, headers);
+        return YandexApi.await(sendPostRequestAsync(path, data, contentType, cookie));
     }
 
-    public ApiResponse sendPutRequest(String path, String data, String contentType) throws ApiException {
-        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
+    /**
+     * Send post request asynchronously.
+     *
+     * @param path the path
+     * @param data the data
+     * @param contentType the content type
+     * @param cookie the cookie, may be empty
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendPostRequestAsync(String path, String data, String contentType,
+            String cookie) {
+        return csrfTokenAsync().thenCompose(csrfToken -> {
             HttpFields headers = new HttpFields();
-            headers.add("charset", "utf-8");
+            headers.add("x-csrf-token", csrfToken);
             headers.add(HttpHeader.CONTENT_TYPE, contentType);
+            headers.add("charset", "utf-8");
 
-            HttpCookie session = cookieUtils.extractParamFromCookie("Session_id", cookieStore);
-            HttpCookie yandexUid = cookieUtils.extractParamFromCookie("yandexuid", cookieStore);
+            if (!cookie.isEmpty()) {
+                headers.add(HttpHeader.COOKIE, cookie);
+            }
+            ContentProvider content = new StringContentProvider(contentType, data, StandardCharsets.UTF_8);
+            return sendRequestAsync(path, "", content, HttpMethod.POST, headers);
+        });
+    }
 
-            headers.add(HttpHeader.COOKIE, session.getName() + "=" + session.getValue() + ";" + yandexUid.getName()
-                    + "=" + yandexUid.getValue());
+    public ApiResponse sendPutRequest(String path, String data, String contentType) throws ApiException {
+        return YandexApi.await(sendPutRequestAsync(path, data, contentType));
+    }
 
-            if (yaSession.csrfToken.isEmpty()) {
-                yaSession.csrfToken = readCSRFToken(false).strip();
-            }
-            logger.trace("csrf is: {}", yaSession.csrfToken);
-            headers.add("x-csrf-token", yaSession.csrfToken);
+    /**
+     * Send put request asynchronously.
+     *
+     * @param path the path
+     * @param data the data
+     * @param contentType the content type
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendPutRequestAsync(String path, String data, String contentType) {
+        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
+            return csrfTokenAsync().thenCompose(csrfToken -> {
+                HttpFields headers = new HttpFields();
+                headers.add("charset", "utf-8");
+                headers.add(HttpHeader.CONTENT_TYPE, contentType);
 
-            ContentProvider content = new StringContentProvider(contentType, data, StandardCharsets.UTF_8);
-            return sendRequest(path, "", content, HttpMethod.PUT, headers);
+                headers.add(HttpHeader.COOKIE, cookieStore.getSessionHeader());
+                headers.add("x-csrf-token", csrfToken);
+
+                ContentProvider content = new StringContentProvider(contentType, data, StandardCharsets.UTF_8);
+                return sendRequestAsync(path, "", content, HttpMethod.PUT, headers);
+            });
         }
-        return new ApiResponse();
+        return CompletableFuture.completedFuture(new ApiResponse());
     }
 
     public ApiResponse sendDeleteRequest(String path) throws ApiException {
-        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
-            HttpFields headers = new HttpFields();
-            headers.add("charset", "utf-8");
-
-            HttpCookie session = cookieUtils.extractParamFromCookie("Session_id", cookieStore);
-            HttpCookie yandexUid = cookieUtils.extractParamFromCookie("yandexuid", cookieStore);
+        return YandexApi.await(sendDeleteRequestAsync(path));
+    }
 
-            headers.add(HttpHeader.COOKIE, session.getName() + "=" + session.getValue() + ";" + yandexUid.getName()
-                    + "=" + yandexUid.getValue());
+    /**
+     * Send delete request asynchronously.
+     *
+     * @param path the path
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendDeleteRequestAsync(String path) {
+        if (cookieUtils.isCookieHasSessionId(cookieStore)) {
+            return csrfTokenAsync().thenCompose(csrfToken -> {
+                HttpFields headers = new HttpFields();
+                headers.add("charset", "utf-8");
 
-            if (yaSession.csrfToken.isEmpty()) {
-                yaSession.csrfToken = readCSRFToken(false).strip();
-            }
-            logger.trace("csrf is: {}", yaSession.csrfToken);
-            headers.add("x-csrf-token", yaSession.csrfToken);
+                headers.add(HttpHeader.COOKIE, cookieStore.getSessionHeader());
+                headers.add("x-csrf-token", csrfToken);
 
-            return sendRequest(path, "", null, HttpMethod.DELETE, headers);
+                return sendRequestAsync(path, "", null, HttpMethod.DELETE, headers);
+            });
         }
-        return new ApiResponse();
+        return CompletableFuture.completedFuture(new ApiResponse());
     }
 
     class YandexCookies {
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link QuasarAuthCoordinator} coordinates the session refresh of the Quasar api when a request is rejected
+ * with 401. Only one refresh runs at a time, new requests wait for it, and the rejected requests are replayed
+ * after it. Each successful refresh starts a new session generation, a request of a previous generation
+ * is replayed without another refresh. A failed refresh is not repeated during the retry delay.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class QuasarAuthCoordinator {
+    /**
+     * Delay of the refresh after a failed one in ms.
+     */
+    private static final long RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private @Nullable CompletableFuture<Boolean> refreshing;
+    private long generation;
+    private long failed;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder paused = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+
+    /**
+     * Waits for the running session refresh.
+     *
+     * @return the future session generation, completed immediately if there is no refresh
+     */
+    public CompletableFuture<Long> whenReady() {
+        CompletableFuture<Boolean> future;
+        synchronized (this) {
+            future = refreshing;
+            if (future == null) {
+                return CompletableFuture.completedFuture(generation);
+            }
+        }
+        paused.increment();
+        return future.handle((refreshed, e) -> getGeneration());
+    }
+
+    /**
+     * Refreshes session rejected by the server.
+     *
+     * @param rejected the generation of the rejected request
+     * @param refresher the session refresh, completed with true if the session is refreshed
+     * @return the future, true if the request may be replayed
+     */
+    public CompletableFuture<Boolean> refresh(long rejected, Supplier<CompletableFuture<Boolean>> refresher) {
+        CompletableFuture<Boolean> future;
+        synchronized (this) {
+            if (rejected != generation) {
+                // the session is already refreshed
+                return CompletableFuture.completedFuture(true);
+            }
+            future = refreshing;
+            if (future != null) {
+                return future;
+            }
+            if (failures.sum() > 0 && System.currentTimeMillis() - failed < RETRY_DELAY) {
+                return CompletableFuture.completedFuture(false);
+            }
+            future = new CompletableFuture<>();
+            refreshing = future;
+        }
+        refreshes.increment();
+        CompletableFuture<Boolean> result = future;
+        CompletableFuture<Boolean> refresh;
+        try {
+            refresh = refresher.get();
+        } catch (RuntimeException e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        refresh.whenComplete((refreshed, e) -> {
+            boolean ok = e == null && Boolean.TRUE.equals(refreshed);
+            synchronized (this) {
+                if (ok) {
+                    generation++;
+                } else {
+                    failures.increment();
+                    failed = System.currentTimeMillis();
+                }
+                refreshing = null;
+            }
+            result.complete(ok);
+        });
+        return result;
+    }
+
+    /**
+     * Counts replayed request.
+     */
+    public void replayed() {
+        replays.increment();
+    }
+
+    /**
+     * Gets session generation.
+     *
+     * @return the generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("refreshes=%d failed=%d paused=%d replayed=%d", refreshes.sum(), failures.sum(),
+                paused.sum(), replays.sum());
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_CSRF_TOKEN;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.yandexstation.internal.YandexStationLatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link QuasarCsrfTokenManager} keeps the Quasar csrf token of a bridge. Concurrent refreshes are
+ * deduplicated, all callers get the result of the single running download. A token older than the refresh age
+ * is still used, but a new one is downloaded in the background. A failed download is not repeated during
+ * the retry delay, the stored token is used meanwhile.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class QuasarCsrfTokenManager {
+    /**
+     * Age of token to be refreshed in the background.
+     */
+    private static final long REFRESH_AGE = TimeUnit.HOURS.toMillis(6);
+    /**
+     * Delay of the download after a failed one in ms.
+     */
+    private static final long RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(QuasarCsrfTokenManager.class);
+    private final YandexCredentialStore credentials;
+    private @Nullable CompletableFuture<String> refreshing;
+    /**
+     * Time of the token download, -1 if it is unknown yet.
+     */
+    private volatile long obtained = -1;
+    /**
+     * Time of the last failed download, 0 if there is none.
+     */
+    private volatile long failed;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder paused = new LongAdder();
+    private final YandexStationLatencyHistogram latency = new YandexStationLatencyHistogram();
+
+    /**
+     * Instantiates a new csrf token manager.
+     *
+     * @param credentials the credential store of the bridge
+     */
+    public QuasarCsrfTokenManager(YandexCredentialStore credentials) {
+        this.credentials = credentials;
+    }
+
+    /**
+     * Gets token, it is downloaded if there is no token.
+     *
+     * @param fetcher the token download, completed with empty string if the token is not found
+     * @return the future token, completed with empty string if it can't be downloaded
+     */
+    public CompletableFuture<String> getToken(Supplier<CompletableFuture<String>> fetcher) {
+        String token = credentials.get(FILE_CSRF_TOKEN);
+        if (token.isEmpty()) {
+            return refresh(fetcher);
+        }
+        if (getAge() > REFRESH_AGE && !isPaused()) {
+            logger.debug("csrf token is {} min old, refreshing", TimeUnit.MILLISECONDS.toMinutes(getAge()));
+            refresh(fetcher);
+        }
+        return CompletableFuture.completedFuture(token);
+    }
+
+    /**
+     * Refreshes token rejected by the server. If the token is already refreshed by another request,
+     * the new token is returned without download.
+     *
+     * @param rejected the rejected token, empty to refresh anyway
+     * @param fetcher the token download, completed with empty string if the token is not found
+     * @return the future token, completed with empty string if it can't be downloaded
+     */
+    public CompletableFuture<String> refresh(String rejected, Supplier<CompletableFuture<String>> fetcher) {
+        String token = credentials.get(FILE_CSRF_TOKEN);
+        if (!rejected.isEmpty() && !token.isEmpty() && !token.equals(rejected)) {
+            joined.increment();
+            return CompletableFuture.completedFuture(token);
+        }
+        return refresh(fetcher);
+    }
+
+    private CompletableFuture<String> refresh(Supplier<CompletableFuture<String>> fetcher) {
+        CompletableFuture<String> future;
+        synchronized (this) {
+            future = refreshing;
+            if (future != null) {
+                joined.increment();
+                return future;
+            }
+            if (isPaused()) {
+                paused.increment();
+                return CompletableFuture.completedFuture(credentials.get(FILE_CSRF_TOKEN));
+            }
+            future = new CompletableFuture<>();
+            refreshing = future;
+        }
+        refreshes.increment();
+        long started = System.nanoTime();
+        CompletableFuture<String> result = future;
+        CompletableFuture<String> download;
+        try {
+            download = fetcher.get();
+        } catch (RuntimeException e) {
+            download = CompletableFuture.failedFuture(e);
+        }
+        download.whenComplete((token, e) -> {
+            latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            String csrfToken = e == null && token != null ? token.strip() : "";
+            if (csrfToken.isEmpty()) {
+                // the previous token is kept, it may be still valid
+                failures.increment();
+                failed = System.currentTimeMillis();
+                logger.debug("Can't refresh csrf token: {}", e == null ? "token is not found" : e.getMessage());
+            } else {
+                obtained = System.currentTimeMillis();
+                failed = 0;
+                credentials.put(FILE_CSRF_TOKEN, csrfToken);
+            }
+            synchronized (this) {
+                refreshing = null;
+            }
+            result.complete(csrfToken);
+        });
+        return result;
+    }
+
+    private boolean isPaused() {
+        long time = failed;
+        return time != 0 && System.currentTimeMillis() - time < RETRY_DELAY;
+    }
+
+    /**
+     * Invalidates token, the next request downloads a new one.
+     */
+    public void invalidate() {
+        credentials.delete(FILE_CSRF_TOKEN);
+        obtained = -1;
+    }
+
+    /**
+     * Gets token age.
+     *
+     * @return the age in ms
+     */
+    public long getAge() {
+        long time = obtained;
+        if (time < 0) {
+            // the token is read from the file
+            time = credentials.getFile(FILE_CSRF_TOKEN).lastModified();
+            obtained = time;
+        }
+        return System.currentTimeMillis() - time;
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("refreshes=%d joined=%d failed=%d paused=%d age=%ds latency=%s", refreshes.sum(),
+                joined.sum(), failures.sum(), paused.sum(), TimeUnit.MILLISECONDS.toSeconds(getAge()), latency);
+    }
+}
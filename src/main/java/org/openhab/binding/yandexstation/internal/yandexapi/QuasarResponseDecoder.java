@@ -0,0 +1,505 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APICloudDevicesResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIServerAction;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The {@link QuasarResponseDecoder} is a streaming decoder of Quasar device and scenario lists.
+ * It reads only households, rooms, items with their quasar info, and scenario ids and names,
+ * capabilities, properties and triggers are skipped without building a DOM or DTO tree.
+ * It also scans the Quasar html page for the csrf token and decodes server actions of the update_states messages.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class QuasarResponseDecoder {
+    private static final String UPDATE_STATES = "update_states";
+    private static final String SERVER_ACTION = "devices.capabilities.quasar.server_action";
+    private static final byte[] CSRF_TOKEN_KEY = "\"csrfToken2\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] CSRF_TOKEN_KEY_PREFIX = prefixFunction(CSRF_TOKEN_KEY);
+    private static final int MAX_CSRF_TOKEN_LENGTH = 256;
+
+    /**
+     * Decode device list.
+     *
+     * @param content the response content
+     * @return the devices
+     * @throws IOException if the content is not a valid json
+     */
+    public static APICloudDevicesResponse decodeDevices(Reader content) throws IOException {
+        APICloudDevicesResponse devices = new APICloudDevicesResponse();
+        try (JsonReader reader = new JsonReader(content)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "status":
+                        if (isString(reader)) {
+                            devices.status = reader.nextString();
+                        }
+                        break;
+                    case "updates_url":
+                        if (isString(reader)) {
+                            devices.updates_url = reader.nextString();
+                        }
+                        break;
+                    case "households":
+                        if (isArray(reader)) {
+                            List<APICloudDevicesResponse.Households> households = new ArrayList<>();
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                if (isObject(reader)) {
+                                    households.add(readHousehold(reader, devices));
+                                }
+                            }
+                            reader.endArray();
+                            devices.households = households.toArray(new APICloudDevicesResponse.Households[0]);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return devices;
+    }
+
+    private static APICloudDevicesResponse.Households readHousehold(JsonReader reader,
+            APICloudDevicesResponse devices) throws IOException {
+        APICloudDevicesResponse.Households household = devices.new Households();
+        List<APICloudDevicesResponse.Rooms> rooms = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "rooms":
+                    if (isArray(reader)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (isObject(reader)) {
+                                rooms.add(readRoom(reader, devices));
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        household.rooms = rooms.toArray(new APICloudDevicesResponse.Rooms[0]);
+        return household;
+    }
+
+    private static APICloudDevicesResponse.Rooms readRoom(JsonReader reader, APICloudDevicesResponse devices)
+            throws IOException {
+        APICloudDevicesResponse.Rooms room = devices.new Rooms();
+        List<APICloudDevicesResponse.Items> items = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "items":
+                    if (isArray(reader)) {
+                        readItems(reader, devices, items);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        room.items = items.toArray(new APICloudDevicesResponse.Items[0]);
+        return room;
+    }
+
+    private static void readItems(JsonReader reader, APICloudDevicesResponse devices,
+            List<APICloudDevicesResponse.Items> items) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (isObject(reader)) {
+                items.add(readItem(reader, devices));
+            }
+        }
+        reader.endArray();
+    }
+
+    private static APICloudDevicesResponse.Items readItem(JsonReader reader, APICloudDevicesResponse devices)
+            throws IOException {
+        APICloudDevicesResponse.Items item = devices.new Items();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    if (isString(reader)) {
+                        item.id = reader.nextString();
+                    }
+                    break;
+                case "quasar_info":
+                    if (isObject(reader)) {
+                        item.guasarInfo = readQuasarInfo(reader);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return item;
+    }
+
+    private static APICloudDevicesResponse.QuasarInfo readQuasarInfo(JsonReader reader) throws IOException {
+        APICloudDevicesResponse.QuasarInfo info = new APICloudDevicesResponse.QuasarInfo();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "device_id":
+                    if (isString(reader)) {
+                        info.deviceId = reader.nextString();
+                    }
+                    break;
+                case "platform":
+                    if (isString(reader)) {
+                        info.platform = reader.nextString();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return info;
+    }
+
+    /**
+     * Decode scenario list.
+     *
+     * @param content the response content
+     * @return the scenarios
+     * @throws IOException if the content is not a valid json
+     */
+    public static APIScenarioResponse decodeScenarios(Reader content) throws IOException {
+        APIScenarioResponse scenarios = new APIScenarioResponse();
+        try (JsonReader reader = new JsonReader(content)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "status":
+                        if (isString(reader)) {
+                            scenarios.status = reader.nextString();
+                        }
+                        break;
+                    case "scenarios":
+                        if (isArray(reader)) {
+                            List<APIScenarioResponse.Scenarios> list = new ArrayList<>();
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                if (isObject(reader)) {
+                                    list.add(readScenario(reader, scenarios));
+                                }
+                            }
+                            reader.endArray();
+                            scenarios.scenarios = list.toArray(new APIScenarioResponse.Scenarios[0]);
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return scenarios;
+    }
+
+    private static APIScenarioResponse.Scenarios readScenario(JsonReader reader, APIScenarioResponse scenarios)
+            throws IOException {
+        APIScenarioResponse.Scenarios scenario = scenarios.new Scenarios();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    if (isString(reader)) {
+                        scenario.id = reader.nextString();
+                    }
+                    break;
+                case "name":
+                    if (isString(reader)) {
+                        scenario.name = reader.nextString();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return scenario;
+    }
+
+    /**
+     * Decode server actions of all updated devices and all their capabilities from update_states message.
+     * The embedded message string is decoded without building a DOM tree.
+     *
+     * @param frame the websocket message
+     * @return the server actions, empty if it is another operation
+     * @throws IOException if the message is not a valid json
+     */
+    public static List<APIServerAction> decodeServerActions(String frame) throws IOException {
+        String operation = "";
+        String message = "";
+        try (JsonReader reader = new JsonReader(new StringReader(frame))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "operation":
+                        if (isString(reader)) {
+                            operation = reader.nextString();
+                        }
+                        break;
+                    case "message":
+                        if (isString(reader)) {
+                            message = reader.nextString();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (!UPDATE_STATES.equals(operation) || message.isEmpty()) {
+            return List.of();
+        }
+
+        List<APIServerAction> actions = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(message))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "updated_devices":
+                        if (isArray(reader)) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                if (isObject(reader)) {
+                                    readUpdatedDevice(reader, actions);
+                                }
+                            }
+                            reader.endArray();
+                        }
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return actions;
+    }
+
+    private static void readUpdatedDevice(JsonReader reader, List<APIServerAction> actions) throws IOException {
+        String id = "";
+        List<String> values = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    if (isString(reader)) {
+                        id = reader.nextString();
+                    }
+                    break;
+                case "capabilities":
+                    if (isArray(reader)) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (isObject(reader)) {
+                                readCapability(reader, values);
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // the id may follow the capabilities
+        for (String value : values) {
+            APIServerAction action = new APIServerAction();
+            action.deviceId = id;
+            action.value = value;
+            actions.add(action);
+        }
+    }
+
+    private static void readCapability(JsonReader reader, List<String> values) throws IOException {
+        String type = "";
+        String value = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    if (isString(reader)) {
+                        type = reader.nextString();
+                    }
+                    break;
+                case "state":
+                    if (isObject(reader)) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "value":
+                                    if (isString(reader)) {
+                                        value = reader.nextString();
+                                    }
+                                    break;
+                                default:
+                                    reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (SERVER_ACTION.equals(type) && !value.isEmpty()) {
+            values.add(value);
+        }
+    }
+
+    /**
+     * Creates scanner of csrf token on the Quasar html page. The page is scanned until the token is found,
+     * the token length is limited.
+     *
+     * @return the scanner, its result is empty if the token is not found
+     */
+    public static ApiScanListener.ContentScanner<String> csrfTokenScanner() {
+        return new CsrfTokenScanner();
+    }
+
+    /**
+     * Computes the prefix function of the key for the scanner: the length of the longest proper prefix
+     * of every key prefix which is also its suffix.
+     */
+    private static int[] prefixFunction(byte[] key) {
+        int[] prefix = new int[key.length];
+        for (int i = 1, k = 0; i < key.length; i++) {
+            while (k > 0 && key[k] != key[i]) {
+                k = prefix[k - 1];
+            }
+            if (key[k] == key[i]) {
+                k++;
+            }
+            prefix[i] = k;
+        }
+        return prefix;
+    }
+
+    /**
+     * The key and the token are ascii, the bytes of multibyte utf-8 chars never match them,
+     * so the page is scanned without decoding.
+     */
+    private static class CsrfTokenScanner implements ApiScanListener.ContentScanner<String> {
+        private int matched;
+        private @Nullable StringBuilder token;
+        private String result = "";
+
+        @Override
+        public boolean scan(ByteBuffer content) {
+            while (content.hasRemaining()) {
+                byte c = content.get();
+                StringBuilder value = token;
+                if (value != null) {
+                    if (c == '"') {
+                        result = value.toString();
+                        return true;
+                    } else if (value.length() >= MAX_CSRF_TOKEN_LENGTH || c < 0) {
+                        return true;
+                    }
+                    value.append((char) c);
+                } else {
+                    while (matched > 0 && CSRF_TOKEN_KEY[matched] != c) {
+                        matched = CSRF_TOKEN_KEY_PREFIX[matched - 1];
+                    }
+                    if (CSRF_TOKEN_KEY[matched] == c) {
+                        matched++;
+                    }
+                    if (matched == CSRF_TOKEN_KEY.length) {
+                        token = new StringBuilder();
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String getResult() {
+            return result;
+        }
+    }
+
+    /*
+     * The type checks below skip explicit json nulls and values of unexpected type,
+     * so the corresponding field keeps its default.
+     */
+
+    private static boolean isString(JsonReader reader) throws IOException {
+        JsonToken next = reader.peek();
+        if (next == JsonToken.STRING || next == JsonToken.NUMBER) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    private static boolean isArray(JsonReader reader) throws IOException {
+        return expect(reader, JsonToken.BEGIN_ARRAY);
+    }
+
+    private static boolean isObject(JsonReader reader) throws IOException {
+        return expect(reader, JsonToken.BEGIN_OBJECT);
+    }
+
+    private static boolean expect(JsonReader reader, JsonToken token) throws IOException {
+        if (reader.peek() == token) {
+            return true;
+        }
+        reader.skipValue();
+        return false;
+    }
+}
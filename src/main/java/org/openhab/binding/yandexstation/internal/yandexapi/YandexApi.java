@@ -12,6 +12,9 @@
  */
 package org.openhab.binding.yandexstation.internal.yandexapi;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jetty.http.HttpFields;
 import org.openhab.binding.yandexstation.internal.yandexapi.response.ApiResponse;
@@ -79,4 +82,29 @@ public interface YandexApi {
      * @throws ApiException the api exception
      */
     ApiResponse sendPostRequest(String path, HttpFields fields, String token) throws ApiException;
+
+    /**
+     * Waits for the async api call, the blocking facade of the async requests.
+     *
+     * @param <T> the result type
+     * @param future the future result
+     * @return the result
+     * @throws ApiException the api exception
+     */
+    static <T> T await(CompletableFuture<T> future) throws ApiException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ApiException("InterruptedException: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ApiException) {
+                throw (ApiException) cause;
+            }
+            throw new ApiException(String.valueOf(cause != null ? cause.getMessage() : e.getMessage()),
+                    cause != null ? cause : e);
+        }
+    }
 }
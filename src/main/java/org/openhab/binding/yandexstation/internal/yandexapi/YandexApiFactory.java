@@ -12,8 +12,14 @@
  */
 package org.openhab.binding.yandexstation.internal.yandexapi;
 
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.BINDING_ID;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jetty.client.HttpClient;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.io.net.http.HttpClientFactory;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -31,6 +37,8 @@ import org.slf4j.LoggerFactory;
 public class YandexApiFactory {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final HttpClient httpClient;
+    private final Map<String, YandexCredentialStore> credentials = new ConcurrentHashMap<>();
+    private final Map<String, QuasarCsrfTokenManager> csrfTokens = new ConcurrentHashMap<>();
 
     /**
      * Instantiates a new Yandex api factory.
@@ -53,6 +61,27 @@ public class YandexApiFactory {
     }
 
     public YandexApi getApiOnline(String bridgeID) throws ApiException {
-        return new QuasarApi(httpClient, bridgeID);
+        return new QuasarApi(httpClient, bridgeID, getCredentials(bridgeID), getCsrfTokens(bridgeID));
+    }
+
+    /**
+     * Gets credential store of the bridge, it is shared by all apis of the bridge.
+     *
+     * @param bridgeID the bridge id
+     * @return the credential store
+     */
+    public YandexCredentialStore getCredentials(String bridgeID) {
+        return credentials.computeIfAbsent(bridgeID,
+                id -> new YandexCredentialStore(id, ThreadPoolManager.getScheduledPool(BINDING_ID)));
+    }
+
+    /**
+     * Gets csrf token manager of the bridge, it is shared by all apis of the bridge.
+     *
+     * @param bridgeID the bridge id
+     * @return the csrf token manager
+     */
+    public QuasarCsrfTokenManager getCsrfTokens(String bridgeID) {
+        return csrfTokens.computeIfAbsent(bridgeID, id -> new QuasarCsrfTokenManager(getCredentials(id)));
     }
 }
@@ -15,14 +15,14 @@ package org.openhab.binding.yandexstation.internal.yandexapi;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jetty.client.HttpClient;
-import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -70,41 +70,56 @@ public class YandexApiImpl implements YandexApi {
 
     @Override
     public ApiResponse sendGetRequest(String path, String params, String token) throws ApiException {
+        return YandexApi.await(sendGetRequestAsync(path, params, token));
+    }
+
+    @Override
+    public ApiResponse sendGetRequest(String path, String token) throws ApiException {
+        return YandexApi.await(sendGetRequestAsync(path, token));
+    }
+
+    /**
+     * Send get request asynchronously.
+     *
+     * @param path the path
+     * @param params the params
+     * @param token the token
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendGetRequestAsync(String path, String params, String token) {
         String pathWithParams = path;
         if (!params.isEmpty()) {
             pathWithParams += "?" + params;
         }
-        return sendGetRequest(pathWithParams, token);
+        return sendGetRequestAsync(pathWithParams, token);
     }
 
-    @Override
-    public ApiResponse sendGetRequest(String path, String token) throws ApiException {
+    /**
+     * Send get request asynchronously.
+     *
+     * @param path the path
+     * @param token the token
+     * @return the future api response
+     */
+    public CompletableFuture<ApiResponse> sendGetRequestAsync(String path, String token) {
         String url = API_URL + path;
-        ApiResponse result = new ApiResponse();
-
         Request request = httpClient.newRequest(url);
         setHeaders(request, token);
         request.method(HttpMethod.GET);
-        String errorReason;
-        try {
-            ContentResponse contentResponse = request.send();
-            result.httpCode = contentResponse.getStatus();
-            if (result.httpCode == 200 || result.httpCode >= 400 && result.httpCode < 500) {
-                result.response = contentResponse.getContentAsString();
-                return result;
+        return ApiResponseListener.send(request).handle((result, e) -> {
+            String errorReason;
+            if (e == null) {
+                if (result.httpCode == 200 || result.httpCode >= 400 && result.httpCode < 500) {
+                    return result;
+                }
+                errorReason = String.format("Yandex API request failed with %d: %s", result.httpCode, result.reason);
+            } else if (e instanceof TimeoutException) {
+                errorReason = "TimeoutException: Yandex API was not reachable on your network";
             } else {
-                errorReason = String.format("Yandex API request failed with %d: %s", contentResponse.getStatus(),
-                        contentResponse.getReason());
+                errorReason = String.format("ExecutionException: %s", e.getMessage());
             }
-        } catch (TimeoutException e) {
-            errorReason = "TimeoutException: Yandex API was not reachable on your network";
-        } catch (ExecutionException e) {
-            errorReason = String.format("ExecutionException: %s", e.getMessage());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            errorReason = String.format("InterruptedException: %s", e.getMessage());
-        }
-        throw new ApiException(errorReason);
+            throw new CompletionException(new ApiException(errorReason));
+        });
     }
 
     @Override
@@ -136,24 +151,38 @@ public class YandexApiImpl implements YandexApi {
     }
 
     public String getDeviceToken(String yandexToken, String device_id, String platform) throws ApiException {
+        return YandexApi.await(getDeviceTokenAsync(yandexToken, device_id, platform));
+    }
+
+    /**
+     * Gets device token asynchronously.
+     *
+     * @param yandexToken the yandex token
+     * @param device_id the device id
+     * @param platform the device platform
+     * @return the future device token
+     */
+    public CompletableFuture<String> getDeviceTokenAsync(String yandexToken, String device_id, String platform) {
         logger.debug("Try to get device token for {}", platform);
         StringBuilder params = new StringBuilder();
         params.append("device_id=");
         params.append(device_id);
         params.append("&platform=");
         params.append(platform);
-        try {
-            ApiResponse response = sendGetRequest(API_PATH_DEVICE_TOKEN, params.toString(), yandexToken);
+        return sendGetRequestAsync(API_PATH_DEVICE_TOKEN, params.toString(), yandexToken).thenApply(response -> {
             if (response.httpCode == 200) {
-                ApiTokenResponse tokenResponse = new Gson().fromJson(response.response, ApiTokenResponse.class);
-                logger.debug("Device token is: {}", tokenResponse.token);
-                return tokenResponse.token;
+                try {
+                    ApiTokenResponse tokenResponse = new Gson().fromJson(response.response, ApiTokenResponse.class);
+                    logger.debug("Device token is: {}", tokenResponse.token);
+                    return tokenResponse.token;
+                } catch (JsonSyntaxException e) {
+                    throw new CompletionException(new ApiException("JsonSyntaxException:{}", e));
+                }
             } else {
-                throw new ApiException(String.format("YandexApi get token error: httpCode = %d", response.httpCode));
+                throw new CompletionException(new ApiException(
+                        String.format("YandexApi get token error: httpCode = %d", response.httpCode)));
             }
-        } catch (JsonSyntaxException e) {
-            throw new ApiException("JsonSyntaxException:{}", e);
-        }
+        });
     }
 
     /**
@@ -164,27 +193,38 @@ public class YandexApiImpl implements YandexApi {
      * @throws ApiException the api exception
      */
     public List<ApiDeviceResponse> getDevices(@NonNull String yandexToken) throws ApiException {
+        return YandexApi.await(getDevicesAsync(yandexToken));
+    }
+
+    /**
+     * Gets devices asynchronously.
+     *
+     * @param yandexToken the yandex token
+     * @return the future devices
+     */
+    public CompletableFuture<List<ApiDeviceResponse>> getDevicesAsync(String yandexToken) {
         logger.debug("Try to get device list");
-        try {
-            ApiResponse response = sendGetRequest(API_PATH_DEVICE_LIST, yandexToken);
+        return sendGetRequestAsync(API_PATH_DEVICE_LIST, yandexToken).thenApply(response -> {
             if (response.httpCode == 200) {
-                JsonObject json = JsonParser.parseString(response.response).getAsJsonObject();
-                JsonArray deviceList = json.getAsJsonArray("devices");
-                Type listType = new TypeToken<ArrayList<ApiDeviceResponse>>() {
-                }.getType();
-                List<ApiDeviceResponse> devices = new Gson().fromJson(deviceList, listType);
-                if (!devices.isEmpty()) {
-                    return devices;
-                } else {
-                    return new ArrayList<>();
+                try {
+                    JsonObject json = JsonParser.parseString(response.response).getAsJsonObject();
+                    JsonArray deviceList = json.getAsJsonArray("devices");
+                    Type listType = new TypeToken<ArrayList<ApiDeviceResponse>>() {
+                    }.getType();
+                    List<ApiDeviceResponse> devices = new Gson().fromJson(deviceList, listType);
+                    if (!devices.isEmpty()) {
+                        return devices;
+                    } else {
+                        return new ArrayList<>();
+                    }
+                } catch (JsonSyntaxException e) {
+                    throw new CompletionException(new ApiException("JsonSyntaxException:{}", e));
                 }
             } else {
-                throw new ApiException(
-                        String.format("YandexApi get device list error: httpCode = %d", response.httpCode));
+                throw new CompletionException(new ApiException(
+                        String.format("YandexApi get device list error: httpCode = %d", response.httpCode)));
             }
-        } catch (JsonSyntaxException e) {
-            throw new ApiException("JsonSyntaxException:{}", e);
-        }
+        });
     }
 
     public ApiDeviceResponse findDevice(@NonNull String deviceId, @NonNull String yandexToken) throws ApiException {
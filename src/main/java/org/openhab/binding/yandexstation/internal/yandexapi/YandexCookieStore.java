@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import java.net.CookieStore;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link YandexCookieStore} is a cookie store tracking changes of the stored cookies.
+ * Its version is incremented only when a cookie is added, its value is changed or it is removed,
+ * so the cookies are persisted only if they are really changed. The cookies are indexed by name,
+ * expired ones are evicted on lookup, and the session cookie header is rebuilt only when the cookies change.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexCookieStore implements CookieStore {
+    public static final String SESSION_ID = "Session_id";
+    public static final String YANDEX_UID = "yandexuid";
+
+    private final CookieStore delegate;
+    private final AtomicLong version = new AtomicLong();
+    /**
+     * The persisted attributes of stored cookies by name, domain and path.
+     */
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+    private final Map<String, HttpCookie> byName = new ConcurrentHashMap<>();
+    private @Nullable String sessionHeader;
+
+    /**
+     * Instantiates a new cookie store.
+     *
+     * @param delegate the store holding cookies
+     */
+    public YandexCookieStore(CookieStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void add(@Nullable URI uri, HttpCookie cookie) {
+        delegate.add(uri, cookie);
+        String key = key(cookie);
+        if (cookie.hasExpired()) {
+            if (cookies.remove(key) != null) {
+                index(cookie.getName());
+                changed();
+            }
+        } else {
+            byName.put(cookie.getName(), cookie);
+            if (!attributes(cookie).equals(cookies.put(key, attributes(cookie)))) {
+                changed();
+            }
+        }
+    }
+
+    @Override
+    public List<HttpCookie> get(@Nullable URI uri) {
+        return delegate.get(uri);
+    }
+
+    @Override
+    public List<HttpCookie> getCookies() {
+        return delegate.getCookies();
+    }
+
+    @Override
+    public List<URI> getURIs() {
+        return delegate.getURIs();
+    }
+
+    @Override
+    public synchronized boolean remove(@Nullable URI uri, HttpCookie cookie) {
+        boolean removed = delegate.remove(uri, cookie);
+        if (removed) {
+            cookies.remove(key(cookie));
+            index(cookie.getName());
+            changed();
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized boolean removeAll() {
+        boolean removed = delegate.removeAll();
+        cookies.clear();
+        byName.clear();
+        if (removed) {
+            changed();
+        }
+        return removed;
+    }
+
+    /**
+     * Gets cookie by name, an expired cookie is removed.
+     *
+     * @param name the cookie name
+     * @return the cookie, null if there is no such cookie
+     */
+    public @Nullable HttpCookie getCookie(String name) {
+        HttpCookie cookie = byName.get(name);
+        if (cookie != null && cookie.hasExpired()) {
+            evict(cookie);
+            cookie = byName.get(name);
+        }
+        return cookie;
+    }
+
+    private synchronized void evict(HttpCookie cookie) {
+        // the delegate may have already dropped the expired cookie
+        delegate.remove(null, cookie);
+        cookies.remove(key(cookie));
+        index(cookie.getName());
+        changed();
+    }
+
+    /**
+     * Gets cookie value by name.
+     *
+     * @param name the cookie name
+     * @return the value, empty if there is no such cookie
+     */
+    public String getValue(String name) {
+        HttpCookie cookie = getCookie(name);
+        return cookie == null ? "" : cookie.getValue();
+    }
+
+    /**
+     * Checks if there is a session id cookie.
+     *
+     * @return true if there is a session id
+     */
+    public boolean hasSessionId() {
+        return getCookie(SESSION_ID) != null;
+    }
+
+    /**
+     * Gets cookie header value with session id and yandex uid.
+     *
+     * @return the header value
+     */
+    public synchronized String getSessionHeader() {
+        // evicts the expired cookies, so the header is rebuilt
+        String sessionId = getValue(SESSION_ID);
+        String yandexUid = getValue(YANDEX_UID);
+        String header = sessionHeader;
+        if (header == null) {
+            header = SESSION_ID + "=" + sessionId + ";" + YANDEX_UID + "=" + yandexUid;
+            sessionHeader = header;
+        }
+        return header;
+    }
+
+    /**
+     * Gets version, it is changed every time the cookies are changed.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void index(String name) {
+        byName.remove(name);
+        for (HttpCookie cookie : delegate.getCookies()) {
+            if (cookie.getName().equals(name) && !cookie.hasExpired()) {
+                byName.putIfAbsent(name, cookie);
+            }
+        }
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        sessionHeader = null;
+    }
+
+    private static String key(HttpCookie cookie) {
+        return cookie.getName() + ";" + cookie.getDomain() + ";" + cookie.getPath();
+    }
+
+    private static String attributes(HttpCookie cookie) {
+        return cookie.getValue() + ";" + cookie.isHttpOnly() + ";" + cookie.getSecure();
+    }
+}
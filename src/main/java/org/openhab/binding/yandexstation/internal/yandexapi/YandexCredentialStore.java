@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_CAPTCHA;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_CSRF_TOKEN;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_MUSIC_TOKEN;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_SESSION_COOKIE;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_X_TOKEN;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.OpenHAB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link YandexCredentialStore} keeps the bridge credentials (csrf token, x-token, music token,
+ * captcha cookie, session cookie) in memory. They are loaded from the user data files once per session
+ * creation, changes are written through to the files in the background, each file is replaced atomically.
+ * Requests never read the files.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexCredentialStore {
+    private static final List<String> CREDENTIALS = List.of(FILE_CSRF_TOKEN, FILE_X_TOKEN, FILE_MUSIC_TOKEN,
+            FILE_CAPTCHA, FILE_SESSION_COOKIE);
+
+    private final Logger logger = LoggerFactory.getLogger(YandexCredentialStore.class);
+    private final String bridgeID;
+    private final ScheduledExecutorService executor;
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Map<String, Supplier<String>> delayed = new ConcurrentHashMap<>();
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * Instantiates a new credential store.
+     *
+     * @param bridgeID the bridge id, the file name prefix
+     * @param executor the executor of file writes
+     */
+    public YandexCredentialStore(String bridgeID, ScheduledExecutorService executor) {
+        this.bridgeID = bridgeID;
+        this.executor = executor;
+        load();
+    }
+
+    /**
+     * Loads credentials from the files, e.g. when the session is created and the user may have edited them.
+     */
+    public synchronized void load() {
+        for (String name : CREDENTIALS) {
+            File file = getFile(name);
+            String value = "";
+            try {
+                if (file.exists()) {
+                    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+                    if (!lines.isEmpty()) {
+                        value = lines.get(0);
+                    }
+                } else if (FILE_CAPTCHA.equals(name)) {
+                    // empty file to be filled from the browser
+                    file.getParentFile().mkdirs();
+                    Files.writeString(file.toPath(), "", StandardCharsets.UTF_8);
+                }
+            } catch (IOException e) {
+                logger.error("Can't read file {}: {}", file.getName(), e.getMessage());
+            }
+            if (!pending.containsKey(name)) {
+                values.put(name, value);
+            }
+        }
+    }
+
+    /**
+     * Gets credential.
+     *
+     * @param name the credential file name
+     * @return the value, empty if there is no such credential
+     */
+    public String get(String name) {
+        reads.increment();
+        return values.getOrDefault(name, "");
+    }
+
+    /**
+     * Sets credential, the file is written in the background.
+     *
+     * @param name the credential file name
+     * @param value the value
+     */
+    public void put(String name, String value) {
+        String previous = values.put(name, value);
+        if (value.equals(previous)) {
+            return;
+        }
+        pending.put(name, value);
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Writes file after the delay, the content is created at write time by the latest supplier. Repeated calls
+     * before the write don't schedule other writes, so the file is written once for a burst of changes.
+     *
+     * @param name the file name
+     * @param content the content supplier
+     * @param delay the delay
+     * @param unit the delay unit
+     */
+    public void writeLater(String name, Supplier<String> content, long delay, TimeUnit unit) {
+        if (delayed.put(name, content) == null) {
+            executor.schedule(() -> writeNow(name), delay, unit);
+        }
+    }
+
+    /**
+     * Writes the delayed file immediately if its write is scheduled, e.g. when the bridge is disposed.
+     *
+     * @param name the file name
+     */
+    public void writeNow(String name) {
+        Supplier<String> content = delayed.remove(name);
+        if (content != null) {
+            synchronized (this) {
+                write(getFile(name), content.get());
+            }
+        }
+    }
+
+    /**
+     * Deletes credential and its file.
+     *
+     * @param name the credential file name
+     */
+    public synchronized void delete(String name) {
+        pending.remove(name);
+        delayed.remove(name);
+        values.remove(name);
+        File file = getFile(name);
+        file.delete();
+    }
+
+    /**
+     * Gets file of the bridge in the user data folder.
+     *
+     * @param name the file name
+     * @return the file
+     */
+    public File getFile(String name) {
+        return new File(OpenHAB.getUserDataFolder() + File.separator + "YandexStation" + File.separator + bridgeID + "_"
+                + name);
+    }
+
+    private synchronized void flush() {
+        flushScheduled.set(false);
+        for (Map.Entry<String, String> entry : pending.entrySet()) {
+            String name = entry.getKey();
+            String value = entry.getValue();
+            if (pending.remove(name, value)) {
+                write(getFile(name), value);
+            }
+        }
+    }
+
+    private void write(File file, String value) {
+        if (file.getParentFile().mkdirs()) {
+            logger.debug("Folders {} created", file.getAbsolutePath());
+        }
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try {
+            Files.writeString(temp, value, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writes.increment();
+        } catch (IOException e) {
+            logger.error("Cannot write to file {}", file.getName());
+        }
+    }
+
+    /**
+     * Gets statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return String.format("reads=%d file writes=%d", reads.sum(), writes.sum());
+    }
+}
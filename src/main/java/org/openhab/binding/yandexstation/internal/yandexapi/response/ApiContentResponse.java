@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi.response;
+
+/**
+ * The {@link ApiContentResponse} is describing api response with streaming parsed content.
+ *
+ * @param <T> the parsed content type
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+public class ApiContentResponse<T> extends ApiResponse {
+    /**
+     * The parsed content, set instead of the response string.
+     */
+    public transient T content;
+}
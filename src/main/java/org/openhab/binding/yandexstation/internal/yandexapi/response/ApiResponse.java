@@ -28,4 +28,8 @@ public class ApiResponse implements Serializable {
      * The Response.
      */
     public String response;
+    /**
+     * The Http reason.
+     */
+    public String reason;
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openhab.binding.yandexstation.internal.YandexStationScenarios.SEPARATOR_CHARS;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+import org.openhab.core.thing.Channel;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.thing.ThingTypeUID;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests the scenario suffix encoding and lookup of {@link YandexScenarioIndex}.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexScenarioIndexTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 8, 9, 99, 999, 123456, Integer.MAX_VALUE })
+    public void decodeReturnsEncodedNumber(int number) {
+        String suffix = YandexScenarioIndex.encode(number);
+
+        assertEquals(number, YandexScenarioIndex.decode("Сделай громкость" + SEPARATOR_CHARS + suffix));
+        assertEquals(number, YandexScenarioIndex.decode("ok---" + SEPARATOR_CHARS + suffix));
+    }
+
+    @Test
+    public void suffixesAreShort() {
+        assertTrue(YandexScenarioIndex.encode(255).length() <= 7);
+        assertTrue(YandexScenarioIndex.encode(4095).length() <= 9);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 26, 27, 4095, Integer.MAX_VALUE })
+    public void suffixesUseOnlyPreviousPauseMarks(int number) {
+        assertTrue(YandexScenarioIndex.encode(number).chars().allMatch(c -> ",.:".indexOf(c) >= 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "answer", "answer---", "answer---,x", "answer---,::::::::::::::::::::::::",
+            // the suffixes written by the previous binding versions
+            "answer---,", "answer---.,", "answer---:.", "answer---.,:", "answer---;,", "answer---;.!?" })
+    public void decodeRejectsInvalidSuffix(String value) {
+        assertEquals(-1, YandexScenarioIndex.decode(value));
+    }
+
+    @Test
+    public void indexMapsSuffixesToChannels() {
+        ThingUID thingUID = new ThingUID(new ThingTypeUID("yandexstation", "scenarios"), "scenarios");
+        ChannelUID first = new ChannelUID(thingUID, "first");
+        ChannelUID second = new ChannelUID(thingUID, "second");
+        YandexScenarioIndex index = new YandexScenarioIndex(Map.of(0, scenario(first), 5, scenario(second)));
+
+        assertEquals(2, index.size());
+        assertEquals(first, index.getChannel(YandexScenarioIndex.decode("a---" + index.getSuffix(first))));
+        assertEquals(second, index.getChannel(YandexScenarioIndex.decode("a---" + index.getSuffix(second))));
+        assertNull(index.getChannel(1));
+        assertNull(index.getChannel(6));
+        assertNull(index.getChannel(-1));
+        assertEquals("", index.getSuffix(new ChannelUID(thingUID, "unknown")));
+    }
+
+    private static YandexStationScenarios scenario(ChannelUID channelUID) {
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getUID()).thenReturn(channelUID);
+        YandexStationScenarios scenario = new YandexStationScenarios();
+        scenario.channel = channel;
+        return scenario;
+    }
+}
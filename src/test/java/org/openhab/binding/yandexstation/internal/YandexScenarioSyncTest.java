@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openhab.binding.yandexstation.internal.YandexStationScenarios.SEPARATOR_CHARS;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.core.config.core.Configuration;
+import org.openhab.core.thing.Channel;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.thing.ThingTypeUID;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests the migration of the scenarios written by the previous binding versions by {@link YandexScenarioSync}.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexScenarioSyncTest {
+    private static final ThingUID THING_UID = new ThingUID(new ThingTypeUID("yandexstation", "scenarios"),
+            "scenarios");
+    private static final String ANSWER = "Готово";
+
+    @Test
+    public void previousSuffixesAreUpdatedOnce() {
+        Channel light = channel("light", "Light");
+        Channel fan = channel("fan", "Fan");
+        List<Channel> channels = List.of(light, fan);
+        APIScenarioResponse response = new APIScenarioResponse();
+        // written by a previous version, it kept no content hashes
+        APIScenarioResponse.Scenarios[] remote = { scenario(response, "s1", "Light"),
+                scenario(response, "s2", "Fan") };
+
+        YandexScenarioSync sync = YandexScenarioSync.plan(channels, remote, Map.of(), YandexScenarioIndex::encode);
+
+        assertEquals(2, sync.count(YandexScenarioSync.Type.UPDATE));
+        assertEquals(2, sync.getActions().size());
+        YandexScenarioIndex index = sync.getIndex();
+        for (YandexScenarioSync.Action action : sync.getActions()) {
+            Channel channel = action.id.equals("s1") ? light : fan;
+            String value = ANSWER + SEPARATOR_CHARS + index.getSuffix(channel.getUID());
+            assertTrue(action.json.contains(value), action.json);
+            assertEquals(channel.getUID(), index.getChannel(YandexScenarioIndex.decode(value)));
+        }
+        // the previous suffixes of both channels, executed before the update is written
+        assertNull(index.getChannel(YandexScenarioIndex.decode(ANSWER + SEPARATOR_CHARS + ",")));
+        assertNull(index.getChannel(YandexScenarioIndex.decode(ANSWER + SEPARATOR_CHARS + ".")));
+
+        sync.getActions().forEach(sync::synced);
+        Map<String, String> synced = YandexScenarioSync
+                .parseHashes(List.of(YandexScenarioSync.formatHashes(sync.getHashes()).split("\n")));
+        YandexScenarioSync next = YandexScenarioSync.plan(channels, remote, synced, YandexScenarioIndex::encode);
+
+        assertTrue(next.getActions().isEmpty());
+        assertEquals(2, next.getUnchanged());
+    }
+
+    private static Channel channel(String id, String label) {
+        Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.get("answer")).thenReturn(ANSWER);
+        Channel channel = Mockito.mock(Channel.class);
+        Mockito.when(channel.getUID()).thenReturn(new ChannelUID(THING_UID, id));
+        Mockito.when(channel.getLabel()).thenReturn(label);
+        Mockito.when(channel.getConfiguration()).thenReturn(configuration);
+        return channel;
+    }
+
+    private static APIScenarioResponse.Scenarios scenario(APIScenarioResponse response, String id, String label) {
+        APIScenarioResponse.Scenarios scenario = response.new Scenarios();
+        scenario.id = id;
+        scenario.name = SEPARATOR_CHARS + " " + label;
+        return scenario;
+    }
+}
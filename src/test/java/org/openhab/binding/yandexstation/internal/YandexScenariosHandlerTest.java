@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.THING_TYPE_BRIDGE;
+import static org.openhab.binding.yandexstation.internal.YandexStationBindingConstants.THING_TYPE_SCENARIO;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.openhab.binding.yandexstation.internal.yandexapi.ApiException;
+import org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi;
+import org.openhab.binding.yandexstation.internal.yandexapi.YandexApiFactory;
+import org.openhab.core.thing.Bridge;
+import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingStatus;
+import org.openhab.core.thing.ThingStatusDetail;
+import org.openhab.core.thing.ThingUID;
+import org.openhab.core.thing.binding.ThingHandlerCallback;
+import org.openhab.core.thing.binding.builder.ThingStatusInfoBuilder;
+
+/**
+ * Tests the initialization of {@link YandexScenariosHandler} driven by the bridge status.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@NonNullByDefault
+public class YandexScenariosHandlerTest {
+    /**
+     * Time in ms the bridge is kept offline while the cpu time is measured.
+     */
+    private static final long OFFLINE_WINDOW = 500;
+    private static final ThingUID BRIDGE_UID = new ThingUID(THING_TYPE_BRIDGE, "account");
+    private static final ThingUID THING_UID = new ThingUID(THING_TYPE_SCENARIO, BRIDGE_UID, "scenarios");
+
+    private @Mock @NonNullByDefault({}) Thing thing;
+    private @Mock @NonNullByDefault({}) Bridge bridge;
+    private @Mock @NonNullByDefault({}) YandexStationBridge bridgeHandler;
+    private @Mock @NonNullByDefault({}) YandexApiFactory apiFactory;
+    private @Mock @NonNullByDefault({}) QuasarApi quasar;
+    private @Mock @NonNullByDefault({}) YandexStationWebSocketFactory webSocketFactory;
+    private @Mock @NonNullByDefault({}) ThingHandlerCallback callback;
+    private @NonNullByDefault({}) YandexScenariosHandler handler;
+    private @TempDir @NonNullByDefault({}) Path userdata;
+
+    @BeforeEach
+    public void setUp() throws ApiException {
+        when(thing.getUID()).thenReturn(THING_UID);
+        when(thing.getBridgeUID()).thenReturn(BRIDGE_UID);
+        when(thing.getChannels()).thenReturn(List.of());
+        when(bridge.getUID()).thenReturn(BRIDGE_UID);
+        when(bridge.getHandler()).thenReturn(bridgeHandler);
+        when(bridgeHandler.getThing()).thenReturn(bridge);
+        when(callback.getBridge(BRIDGE_UID)).thenReturn(bridge);
+        when(apiFactory.getApiOnline(BRIDGE_UID.getId())).thenReturn(quasar);
+        // the initialization is kept running, so the websocket is not connected
+        when(quasar.getWssUrlAsync()).thenReturn(new CompletableFuture<>());
+
+        handler = new YandexScenariosHandler(thing, apiFactory, webSocketFactory);
+        handler.setCallback(callback);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        handler.dispose();
+    }
+
+    @Test
+    public void initializeWithOfflineBridgeWaitsForBridge() {
+        when(bridge.getStatus()).thenReturn(ThingStatus.OFFLINE);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), handler::initialize);
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.OFFLINE).build());
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.UNKNOWN).build());
+
+        verify(quasar, never()).getWssUrlAsync();
+        verify(callback, atLeastOnce()).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.OFFLINE
+                && info.getStatusDetail() == ThingStatusDetail.BRIDGE_OFFLINE));
+    }
+
+    @Test
+    public void initializeWithOfflineBridgeKeepsCpuTimeFlat() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadCpuTimeSupported());
+        threads.setThreadCpuTimeEnabled(true);
+        when(bridge.getStatus()).thenReturn(ThingStatus.OFFLINE);
+        CountDownLatch measured = new CountDownLatch(1);
+        AtomicLong cpuTime = new AtomicLong();
+        // the thread which initializes the handler is kept alive, so its cpu time is read after the offline window
+        Thread initializer = new Thread(() -> {
+            handler.initialize();
+            try {
+                measured.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        initializer.start();
+        Thread.sleep(OFFLINE_WINDOW);
+        cpuTime.set(threads.getThreadCpuTime(initializer.getId()));
+        measured.countDown();
+        initializer.join();
+
+        // waiting for the bridge in initialize spins for the whole window
+        long cpuMillis = TimeUnit.NANOSECONDS.toMillis(cpuTime.get());
+        assertTrue(cpuMillis < OFFLINE_WINDOW / 5,
+                String.format("initialize used %d ms cpu in %d ms offline", cpuMillis, OFFLINE_WINDOW));
+        verify(quasar, never()).getWssUrlAsync();
+    }
+
+    @Test
+    public void bridgeOnlineStartsInitializationOnce() {
+        when(bridge.getStatus()).thenReturn(ThingStatus.OFFLINE);
+        handler.initialize();
+
+        when(bridge.getStatus()).thenReturn(ThingStatus.ONLINE);
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.ONLINE).build());
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.ONLINE).build());
+
+        verify(quasar, times(1)).getWssUrlAsync();
+        // by initialize and when the bridge is online
+        verify(callback, times(2)).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.UNKNOWN));
+        // online only when the websocket is connected
+        verify(callback, never()).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.ONLINE));
+    }
+
+    @Test
+    public void bridgeOfflineOnlineCycleRestartsInitialization() {
+        when(bridge.getStatus()).thenReturn(ThingStatus.ONLINE);
+        handler.initialize();
+
+        when(bridge.getStatus()).thenReturn(ThingStatus.OFFLINE);
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.OFFLINE).build());
+        when(bridge.getStatus()).thenReturn(ThingStatus.ONLINE);
+        handler.bridgeStatusChanged(ThingStatusInfoBuilder.create(ThingStatus.ONLINE).build());
+
+        verify(quasar, times(2)).getWssUrlAsync();
+        verify(callback).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.OFFLINE
+                && info.getStatusDetail() == ThingStatusDetail.BRIDGE_OFFLINE));
+        verify(callback, never()).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.ONLINE));
+    }
+
+    @Test
+    public void initializeWithOnlineBridgeStartsInitialization() {
+        when(bridge.getStatus()).thenReturn(ThingStatus.ONLINE);
+
+        handler.initialize();
+
+        verify(quasar, times(1)).getWssUrlAsync();
+        verify(callback, never()).statusUpdated(any(),
+                argThat(info -> info.getStatusDetail() == ThingStatusDetail.BRIDGE_OFFLINE));
+    }
+
+    @Test
+    public void failedScenarioListSkipsSync() {
+        when(bridge.getStatus()).thenReturn(ThingStatus.ONLINE);
+        when(quasar.getWssUrlAsync()).thenReturn(CompletableFuture.completedFuture("wss://example/updates"));
+        when(quasar.getScenariosAsync()).thenReturn(CompletableFuture.failedFuture(new ApiException("rate limit")));
+        when(quasar.getDevicesAsync()).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        when(quasar.getFile(anyString())).thenReturn(userdata.resolve("scenarios").toFile());
+
+        handler.initialize();
+
+        verify(quasar, never()).getDevicesAsync();
+        verify(quasar, never()).createScenarioAsync(anyString());
+        verify(quasar, never()).deleteScenarioAsync(anyString());
+        verify(quasar, never()).writeScenarioHashes(anyString());
+        verify(callback).statusUpdated(eq(thing), argThat(info -> info.getStatus() == ThingStatus.OFFLINE
+                && info.getStatusDetail() == ThingStatusDetail.COMMUNICATION_ERROR));
+    }
+}
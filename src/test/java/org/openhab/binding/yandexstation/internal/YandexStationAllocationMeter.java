@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link YandexStationAllocationMeter} measures bytes allocated by the current thread, the test is skipped
+ * if the JVM doesn't support it.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationAllocationMeter {
+    /**
+     * The measured task.
+     */
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Instantiates a new allocation meter.
+     */
+    public YandexStationAllocationMeter() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Measures bytes allocated by a task run. The task is warmed up first, so the measured allocations
+     * don't include class loading.
+     *
+     * @param runs the count of warm up and measured runs
+     * @param task the task
+     * @return the bytes allocated per run
+     * @throws Exception the task exception
+     */
+    public long perRun(int runs, Task task) throws Exception {
+        for (int i = 0; i < runs; i++) {
+            task.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            task.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - start) / runs;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the threads of the shared {@link YandexStationWebSocketFactory} client with a client per handler.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationWebSocketFactoryTest {
+    /**
+     * The station and scenario things of a large installation.
+     */
+    private static final int HANDLERS = 13;
+    private static final int MAX_SHARED_THREADS = 8;
+
+    @Test
+    public void sharedClientUsesBoundedThreads() throws Exception {
+        YandexStationWebSocketFactory factory = new YandexStationWebSocketFactory();
+        try {
+            int shared = factory.getThreads();
+
+            int perHandler = perHandlerThreads();
+
+            assertEquals(MAX_SHARED_THREADS, factory.getMaxThreads());
+            assertTrue(shared <= MAX_SHARED_THREADS, String.format("shared client started %d threads", shared));
+            assertTrue(shared * 2 < perHandler,
+                    String.format("shared client %d threads, client per handler %d threads", shared, perHandler));
+            assertEquals(0, factory.getOpenSessions());
+        } finally {
+            factory.deactivate();
+        }
+    }
+
+    /**
+     * Starts a client per handler as the handlers did before the shared client, every client has its own pool.
+     */
+    private int perHandlerThreads() throws Exception {
+        List<WebSocketClient> clients = new ArrayList<>();
+        try {
+            int threads = 0;
+            for (int i = 0; i < HANDLERS; i++) {
+                WebSocketClient client = new WebSocketClient();
+                client.start();
+                clients.add(client);
+                threads += ((QueuedThreadPool) client.getExecutor()).getThreads();
+            }
+            return threads;
+        } finally {
+            for (WebSocketClient client : clients) {
+                client.stop();
+            }
+        }
+    }
+}
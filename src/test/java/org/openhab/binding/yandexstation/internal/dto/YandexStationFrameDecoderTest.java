@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.yandexstation.internal.YandexStationAllocationMeter;
+
+import com.google.gson.Gson;
+
+/**
+ * Tests {@link YandexStationFrameDecoder} and compares its allocations per frame with the DTO mapping it replaces.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexStationFrameDecoderTest {
+    private static final String FRAME = "{\"id\":\"8b3e\",\"sentTime\":1700000000000,"
+            + "\"state\":{\"aliceState\":\"IDLE\",\"canStop\":true,\"hdmi\":{\"capable\":false,\"present\":false},"
+            + "\"playerState\":{\"duration\":215.5,"
+            + "\"entityInfo\":{\"description\":\"\",\"id\":\"101\",\"next\":{\"id\":\"102\",\"type\":\"Track\"},"
+            + "\"prev\":{\"id\":\"100\",\"type\":\"Track\"},\"repeatMode\":\"None\",\"shuffled\":false,"
+            + "\"type\":\"Track\"},\"extra\":{\"coverURI\":\"avatars.yandex.net/get-music-content/1/%%\"},"
+            + "\"hasNext\":true,\"hasPause\":true,\"hasPlay\":false,\"hasPrev\":true,\"hasProgressBar\":true,"
+            + "\"id\":\"101\",\"liveStreamText\":\"\",\"playerType\":\"music\",\"playlistDescription\":\"\","
+            + "\"playlistId\":\"user:onyourwave\",\"playlistPuid\":\"\",\"playlistType\":\"Radio\",\"progress\":42.25,"
+            + "\"showPlayer\":true,\"subtitle\":\"Artist\",\"title\":\"Song\",\"type\":\"Track\"},\"playing\":true,"
+            + "\"timeSinceLastVoiceActivity\":1234,\"volume\":0.4},\"extra\":{\"appState\":\"AAAA\","
+            + "\"environmentState\":\"BBBB\",\"watchedVideoState\":\"CCCC\"},"
+            + "\"supported_features\":[\"play_request\",\"music_player\",\"bluetooth_player\"],"
+            + "\"unsupported_features\":[]}";
+    private static final int FRAMES = 20_000;
+
+    private final YandexStationFrameDecoder decoder = new YandexStationFrameDecoder();
+
+    @Test
+    public void decodePublishedFields() throws IOException {
+        YandexStationFrame frame = new YandexStationFrame();
+
+        decoder.decode(FRAME, frame);
+
+        assertTrue(frame.has(YandexStationFrame.STATE));
+        assertEquals("IDLE", frame.aliceState);
+        assertTrue(frame.playing);
+        assertEquals(4, frame.getVolume());
+        assertEquals(215.5, frame.duration);
+        assertEquals(42.25, frame.progress);
+        assertEquals("101", frame.trackId);
+        assertEquals("102", frame.nextId);
+        assertEquals("100", frame.prevId);
+        assertEquals("user:onyourwave", frame.playlistId);
+        assertEquals("Song", frame.title);
+        assertFalse(frame.has(YandexStationFrame.REQUEST_ID));
+        assertFalse(frame.has(YandexStationFrame.SOFTWARE_VERSION));
+    }
+
+    @Test
+    public void decodeResetsReusedFrame() throws IOException {
+        YandexStationFrame frame = new YandexStationFrame();
+        decoder.decode(FRAME, frame);
+
+        decoder.decode("{\"requestId\":\"r1\",\"status\":\"SUCCESS\",\"processingTime\":12}", frame);
+
+        assertTrue(frame.has(YandexStationFrame.REQUEST_ID));
+        assertEquals("SUCCESS", frame.status);
+        assertEquals(12, frame.processingTime);
+        assertFalse(frame.has(YandexStationFrame.STATE));
+    }
+
+    @Test
+    public void decodeRejectsMalformedFrame() {
+        assertThrows(IOException.class, () -> decoder.decode("[1, 2]", new YandexStationFrame()));
+    }
+
+    @Test
+    public void decodeAllocatesLessThanDtoMapping() throws Exception {
+        YandexStationAllocationMeter meter = new YandexStationAllocationMeter();
+        YandexStationFrame frame = new YandexStationFrame();
+
+        long streaming = meter.perRun(FRAMES, () -> decoder.decode(FRAME, frame));
+        long mapping = meter.perRun(FRAMES, () -> new Gson().fromJson(FRAME, YandexStationResponse.class));
+
+        assertTrue(streaming * 2 < mapping,
+                String.format("streaming %d bytes per frame, DTO mapping %d bytes per frame", streaming, mapping));
+    }
+}
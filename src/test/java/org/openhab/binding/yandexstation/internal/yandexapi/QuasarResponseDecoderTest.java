@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.yandexstation.internal.YandexStationAllocationMeter;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APICloudDevicesResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIScenarioResponse;
+import org.openhab.binding.yandexstation.internal.yandexapi.response.APIServerAction;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * Tests the streaming decode of the Quasar device and scenario lists and the response size cap.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class QuasarResponseDecoderTest {
+    private static final int ROOMS = 50;
+    private static final int DEVICES_PER_ROOM = 100;
+    private static final int STATION_EVERY = 100;
+
+    @Test
+    public void decodeLargeDeviceList() throws IOException {
+        String payload = devices(ROOMS, DEVICES_PER_ROOM);
+
+        APICloudDevicesResponse devices = QuasarResponseDecoder.decodeDevices(new StringReader(payload));
+
+        assertEquals("ok", devices.status);
+        assertEquals("wss://example/updates", devices.updates_url);
+        assertEquals(1, devices.households.length);
+        assertEquals(ROOMS, devices.households[0].rooms.length);
+        long items = Arrays.stream(devices.households[0].rooms).mapToLong(room -> room.items.length).sum();
+        assertEquals(ROOMS * DEVICES_PER_ROOM, items);
+        long stations = Arrays.stream(devices.households[0].rooms).flatMap(room -> Arrays.stream(room.items))
+                .filter(item -> !item.guasarInfo.deviceId.isEmpty()).count();
+        assertEquals(ROOMS * DEVICES_PER_ROOM / STATION_EVERY, stations);
+        APICloudDevicesResponse.Items station = devices.households[0].rooms[0].items[0];
+        assertEquals("device-0-0", station.id);
+        assertEquals("station-0-0", station.guasarInfo.deviceId);
+        assertEquals("yandexstation_2", station.guasarInfo.platform);
+    }
+
+    @Test
+    public void decodeLargeDeviceListAllocatesLessThanDtoMapping() throws Exception {
+        YandexStationAllocationMeter meter = new YandexStationAllocationMeter();
+        String payload = devices(ROOMS, DEVICES_PER_ROOM);
+
+        long streaming = meter.perRun(1, () -> QuasarResponseDecoder.decodeDevices(new StringReader(payload)));
+        long mapping = meter.perRun(1, () -> new Gson().fromJson(payload, APICloudDevicesResponse.class));
+
+        assertTrue(streaming < mapping,
+                String.format("streaming %d bytes, DTO mapping %d bytes", streaming, mapping));
+    }
+
+    @Test
+    public void decodeDevicesSkipsNullsAndUnexpectedTypes() throws IOException {
+        String payload = "{\"status\":null,\"households\":[{\"rooms\":null,\"id\":\"h0\"},{\"rooms\":[{\"items\":{},"
+                + "\"id\":\"r0\"},{\"items\":null,\"id\":\"r1\"},{\"items\":[{\"id\":\"d1\",\"quasar_info\":null},"
+                + "{\"id\":{\"x\":1},\"quasar_info\":{\"device_id\":[1],\"platform\":\"p\"}}],\"id\":\"r2\"},"
+                + "null],\"id\":\"h1\"}],\"updates_url\":7}";
+
+        APICloudDevicesResponse devices = QuasarResponseDecoder.decodeDevices(new StringReader(payload));
+
+        assertEquals("", devices.status);
+        assertEquals("7", devices.updates_url);
+        assertEquals(2, devices.households.length);
+        assertEquals(0, devices.households[0].rooms.length);
+        assertEquals(3, devices.households[1].rooms.length);
+        assertEquals(0, devices.households[1].rooms[0].items.length);
+        assertEquals(0, devices.households[1].rooms[1].items.length);
+        APICloudDevicesResponse.Items[] items = devices.households[1].rooms[2].items;
+        assertEquals(2, items.length);
+        assertEquals("d1", items[0].id);
+        assertEquals("", items[0].guasarInfo.deviceId);
+        assertEquals("", items[1].id);
+        assertEquals("", items[1].guasarInfo.deviceId);
+        assertEquals("p", items[1].guasarInfo.platform);
+    }
+
+    @Test
+    public void decodeDevicesRejectsMalformedJson() {
+        assertThrows(IOException.class,
+                () -> QuasarResponseDecoder.decodeDevices(new StringReader("{\"households\":[{\"rooms\":")));
+    }
+
+    @Test
+    public void decodeScenarioIdsAndNames() throws IOException {
+        String payload = "{\"status\":\"ok\",\"scenarios\":[{\"id\":\"s1\",\"name\":\"--- Light\",\"icon\":\"home\","
+                + "\"triggers\":[{\"type\":\"scenario.trigger.voice\",\"value\":\"light\"}],\"steps\":[{\"x\":1}]},"
+                + "{\"id\":\"s2\",\"name\":\"Other\",\"is_active\":true}]}";
+
+        APIScenarioResponse scenarios = QuasarResponseDecoder.decodeScenarios(new StringReader(payload));
+
+        assertEquals("ok", scenarios.status);
+        assertEquals(2, scenarios.scenarios.length);
+        assertEquals("s1", scenarios.scenarios[0].id);
+        assertEquals("--- Light", scenarios.scenarios[0].name);
+        assertEquals("s2", scenarios.scenarios[1].id);
+    }
+
+    @Test
+    public void decodeServerActionsOfMixedCapabilities() throws IOException {
+        String message = "{\"updated_devices\":["
+                + "{\"id\":\"lamp\",\"capabilities\":[{\"type\":\"devices.capabilities.on_off\","
+                + "\"state\":{\"instance\":\"on\",\"value\":true}},{\"type\":\"devices.capabilities.range\","
+                + "\"state\":{\"instance\":\"brightness\",\"value\":42}}]},"
+                + "{\"capabilities\":[{\"type\":\"devices.capabilities.quasar.server_action\","
+                + "\"state\":{\"instance\":\"phrase_action\",\"value\":\"light on\"}},"
+                + "{\"type\":\"devices.capabilities.quasar.server_action\",\"state\":{\"value\":null}}],"
+                + "\"id\":\"speaker-1\"},"
+                + "{\"id\":\"socket\",\"capabilities\":[{\"type\":\"devices.capabilities.on_off\","
+                + "\"state\":{\"value\":false,\"instance\":\"on\"}}]},"
+                + "{\"id\":\"speaker-2\",\"capabilities\":[{\"state\":{\"value\":\"music\"},"
+                + "\"type\":\"devices.capabilities.quasar.server_action\"}]}],\"source\":null}";
+        JsonObject frame = new JsonObject();
+        frame.addProperty("operation", "update_states");
+        frame.addProperty("message", message);
+
+        List<APIServerAction> actions = QuasarResponseDecoder.decodeServerActions(frame.toString());
+
+        assertEquals(2, actions.size());
+        assertEquals("speaker-1", actions.get(0).deviceId);
+        assertEquals("light on", actions.get(0).value);
+        assertEquals("speaker-2", actions.get(1).deviceId);
+        assertEquals("music", actions.get(1).value);
+    }
+
+    @Test
+    public void responseLargerThanCapIsAborted() {
+        Response response = mock(Response.class);
+        when(response.getHeaders()).thenReturn(new HttpFields());
+        ApiResponseListener<String> listener = new ApiResponseListener<>(16, null);
+
+        listener.onHeaders(response);
+        listener.onContent(response, ByteBuffer.wrap(new byte[10]));
+        verify(response, never()).abort(any());
+        listener.onContent(response, ByteBuffer.wrap(new byte[10]));
+        verify(response).abort(any());
+    }
+
+    @Test
+    public void declaredContentLengthLargerThanCapIsAborted() {
+        Response response = mock(Response.class);
+        HttpFields headers = new HttpFields();
+        headers.put(HttpHeader.CONTENT_LENGTH, "17");
+        when(response.getHeaders()).thenReturn(headers);
+
+        new ApiResponseListener<String>(16, null).onHeaders(response);
+
+        verify(response).abort(any());
+    }
+
+    /**
+     * Creates device list with capabilities and properties like the Quasar api returns,
+     * every {@link #STATION_EVERY}th device is a station.
+     */
+    private static String devices(int rooms, int devicesPerRoom) {
+        StringBuilder sb = new StringBuilder("{\"status\":\"ok\",\"request_id\":\"r\",\"households\":[{\"id\":\"h1\","
+                + "\"name\":\"Home\",\"rooms\":[");
+        for (int r = 0; r < rooms; r++) {
+            sb.append(r == 0 ? "" : ",").append("{\"id\":\"room-").append(r).append("\",\"name\":\"Room ").append(r)
+                    .append("\",\"items\":[");
+            for (int d = 0; d < devicesPerRoom; d++) {
+                sb.append(d == 0 ? "" : ",").append("{\"id\":\"device-").append(r).append('-').append(d)
+                        .append("\",\"name\":\"Lamp\",\"type\":\"devices.types.light\",\"icon_url\":\"https://x\",")
+                        .append("\"capabilities\":[{\"type\":\"devices.capabilities.on_off\",\"retrievable\":true,")
+                        .append("\"state\":{\"instance\":\"on\",\"value\":true},\"parameters\":{\"split\":false}},")
+                        .append("{\"type\":\"devices.capabilities.range\",\"state\":{\"instance\":\"brightness\",")
+                        .append("\"value\":42},\"parameters\":{\"range\":{\"min\":1,\"max\":100,\"precision\":1}}}],")
+                        .append("\"properties\":[{\"type\":\"devices.properties.float\",\"state\":{\"value\":21.5}}]");
+                if ((r * devicesPerRoom + d) % STATION_EVERY == 0) {
+                    sb.append(",\"quasar_info\":{\"device_id\":\"station-").append(r).append('-').append(d)
+                            .append("\",\"platform\":\"yandexstation_2\",\"multiroom_available\":true}");
+                }
+                sb.append(",\"groups\":[],\"state\":\"online\",\"created\":\"2024-01-01T00:00:00Z\"}");
+            }
+            sb.append("]}");
+        }
+        return sb.append("]}],\"updates_url\":\"wss://example/updates\"}").toString();
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.yandexstation.internal.yandexapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_CSRF_TOKEN;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_PASSPORT_COOKIE;
+import static org.openhab.binding.yandexstation.internal.yandexapi.QuasarApi.FILE_X_TOKEN;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.core.OpenHAB;
+
+/**
+ * Tests {@link YandexCredentialStore}.
+ *
+ * @author "Dmintry P (d51x)" - Initial contribution
+ */
+@NonNullByDefault
+public class YandexCredentialStoreTest {
+    private static final String BRIDGE_ID = "account";
+
+    private @TempDir @NonNullByDefault({}) Path userData;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(OpenHAB.USERDATA_DIR_PROG_ARGUMENT, userData.toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        System.clearProperty(OpenHAB.USERDATA_DIR_PROG_ARGUMENT);
+    }
+
+    @Test
+    public void readsAreServedFromMemory() throws IOException {
+        File file = write(FILE_X_TOKEN, "token1");
+        YandexCredentialStore store = new YandexCredentialStore(BRIDGE_ID, executor);
+
+        Files.writeString(file.toPath(), "changed on disk", StandardCharsets.UTF_8);
+
+        assertEquals("token1", store.get(FILE_X_TOKEN));
+        store.load();
+        assertEquals("changed on disk", store.get(FILE_X_TOKEN));
+        assertEquals("", store.get(FILE_CSRF_TOKEN));
+    }
+
+    @Test
+    public void putWritesFileInBackgroundAtomically() throws Exception {
+        YandexCredentialStore store = new YandexCredentialStore(BRIDGE_ID, executor);
+
+        store.put(FILE_CSRF_TOKEN, "csrf1");
+        store.put(FILE_CSRF_TOKEN, "csrf2");
+        assertEquals("csrf2", store.get(FILE_CSRF_TOKEN));
+        awaitWrites();
+
+        File file = store.getFile(FILE_CSRF_TOKEN);
+        assertEquals(List.of("csrf2"), Files.readAllLines(file.toPath()));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void writeLaterWritesLatestContentOnce() throws Exception {
+        YandexCredentialStore store = new YandexCredentialStore(BRIDGE_ID, executor);
+        AtomicInteger created = new AtomicInteger();
+
+        store.writeLater(FILE_PASSPORT_COOKIE, () -> "first" + created.incrementAndGet(), 1, TimeUnit.HOURS);
+        store.writeLater(FILE_PASSPORT_COOKIE, () -> "latest" + created.incrementAndGet(), 1, TimeUnit.HOURS);
+        assertFalse(store.getFile(FILE_PASSPORT_COOKIE).exists());
+        store.writeNow(FILE_PASSPORT_COOKIE);
+        store.writeNow(FILE_PASSPORT_COOKIE);
+
+        assertEquals(1, created.get());
+        assertEquals("latest1", Files.readString(store.getFile(FILE_PASSPORT_COOKIE).toPath()));
+    }
+
+    @Test
+    public void deleteRemovesValueAndFile() throws IOException {
+        File file = write(FILE_X_TOKEN, "token1");
+        YandexCredentialStore store = new YandexCredentialStore(BRIDGE_ID, executor);
+
+        store.delete(FILE_X_TOKEN);
+
+        assertEquals("", store.get(FILE_X_TOKEN));
+        assertFalse(file.exists());
+    }
+
+    private File write(String name, String value) throws IOException {
+        File file = new File(userData.toFile(), "YandexStation" + File.separator + BRIDGE_ID + "_" + name);
+        file.getParentFile().mkdirs();
+        Files.writeString(file.toPath(), value, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private void awaitWrites() throws Exception {
+        // the writes are queued before this task on the single thread executor
+        executor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+    }
+}